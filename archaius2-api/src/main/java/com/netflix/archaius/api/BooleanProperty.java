@@ -0,0 +1,67 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.api;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link Property} specialized for boolean values.  The property always has a value, falling back to the default
+ * provided when it was created, so that {@link #getAsBoolean()} can be called on hot code paths without boxing.
+ * <p>
+ * Default values are fixed at creation, so {@link #orElse} and {@link #orElseGet} are not supported.
+ */
+public interface BooleanProperty extends Property<Boolean>, BooleanSupplier {
+    /**
+     * @return Most recent value of the property, or the default value if the property is not set
+     */
+    @Override
+    boolean getAsBoolean();
+
+    @Override
+    default Boolean get() {
+        return getAsBoolean();
+    }
+
+    /**
+     * Adapt a {@link Property} that never returns null.  Each read unboxes the delegate's value, implementations
+     * of {@link PropertyRepository} are expected to provide a more efficient version.
+     */
+    static BooleanProperty from(Property<Boolean> property) {
+        return new BooleanProperty() {
+            @Override
+            public boolean getAsBoolean() {
+                return property.get();
+            }
+
+            @Override
+            public String getKey() {
+                return property.getKey();
+            }
+
+            @Override
+            public Subscription subscribe(Consumer<Boolean> consumer) {
+                return property.subscribe(consumer);
+            }
+
+            @Override
+            public <S> Property<S> map(Function<Boolean, S> mapper) {
+                return property.map(mapper);
+            }
+        };
+    }
+}
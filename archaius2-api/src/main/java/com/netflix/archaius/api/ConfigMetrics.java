@@ -0,0 +1,95 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SPI through which the config engine reports metrics about its internals, such as how long rebuilding the state of
+ * a composite config takes or how many property listeners an update runs.  Implementations adapt these to a metrics
+ * library and should be cheap, since some of the metrics are updated on every config change.
+ *
+ * Each metric is reported with the name of its source, i.e. the config or the config of the property factory that
+ * reported it, so that the metrics of different configs of an application can be told apart.
+ *
+ * Metrics aren't reported unless an implementation is set, the default is {@link #noop()}.
+ */
+public interface ConfigMetrics {
+    /** Timer of full rebuilds of the state of a composite or layered config */
+    String CONFIG_REBUILD = "archaius.config.rebuild";
+
+    /** Timer of rebuilds of the state of a composite or layered config that only re-resolved the changed keys */
+    String CONFIG_PARTIAL_REBUILD = "archaius.config.partialRebuild";
+
+    /** Counter of invalidations of the properties of a property factory */
+    String PROPERTY_INVALIDATIONS = "archaius.property.invalidations";
+
+    /** Gauge of the number of property listeners run by the last invalidation */
+    String PROPERTY_LISTENERS = "archaius.property.listeners";
+
+    /** Timer of running the property listeners of an invalidation */
+    String PROPERTY_FAN_OUT = "archaius.property.fanOut";
+
+    /** Timer of polls of a polled config, including failed ones */
+    String POLL = "archaius.poll";
+
+    /** Counter of failed polls */
+    String POLL_ERRORS = "archaius.poll.errors";
+
+    /** Gauge of the number of properties in the last response of a polled config */
+    String POLL_SIZE = "archaius.poll.size";
+
+    interface Timer {
+        void record(long duration, TimeUnit units);
+    }
+
+    interface Counter {
+        void increment(long amount);
+
+        default void increment() {
+            increment(1);
+        }
+    }
+
+    interface Gauge {
+        void set(long value);
+    }
+
+    /**
+     * @param name Name of the metric, such as {@link #CONFIG_REBUILD}
+     * @param source Name of the config reporting the metric
+     */
+    Timer timer(String name, String source);
+
+    /**
+     * @param name Name of the metric, such as {@link #POLL_ERRORS}
+     * @param source Name of the config reporting the metric
+     */
+    Counter counter(String name, String source);
+
+    /**
+     * @param name Name of the metric, such as {@link #POLL_SIZE}
+     * @param source Name of the config reporting the metric
+     */
+    Gauge gauge(String name, String source);
+
+    /**
+     * @return Implementation that discards all metrics
+     */
+    static ConfigMetrics noop() {
+        return NoopConfigMetrics.INSTANCE;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.api;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * {@link Property} specialized for int values.  The property always has a value, falling back to the default
+ * provided when it was created, so that {@link #getAsInt()} can be called on hot code paths without boxing.
+ * <p>
+ * Default values are fixed at creation, so {@link #orElse} and {@link #orElseGet} are not supported.
+ */
+public interface IntProperty extends Property<Integer>, IntSupplier {
+    /**
+     * @return Most recent value of the property, or the default value if the property is not set
+     */
+    @Override
+    int getAsInt();
+
+    @Override
+    default Integer get() {
+        return getAsInt();
+    }
+
+    /**
+     * Adapt a {@link Property} that never returns null.  Each read unboxes the delegate's value, implementations
+     * of {@link PropertyRepository} are expected to provide a more efficient version.
+     */
+    static IntProperty from(Property<Integer> property) {
+        return new IntProperty() {
+            @Override
+            public int getAsInt() {
+                return property.get();
+            }
+
+            @Override
+            public String getKey() {
+                return property.getKey();
+            }
+
+            @Override
+            public Subscription subscribe(Consumer<Integer> consumer) {
+                return property.subscribe(consumer);
+            }
+
+            @Override
+            public <S> Property<S> map(Function<Integer, S> mapper) {
+                return property.map(mapper);
+            }
+        };
+    }
+}
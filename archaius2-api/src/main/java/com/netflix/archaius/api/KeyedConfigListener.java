@@ -0,0 +1,39 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.api;
+
+import java.util.Set;
+
+/**
+ * {@link ConfigListener} that can make use of key level deltas.  Configs that know exactly which
+ * keys were added, changed or removed by an update will call {@link #onConfigUpdated(Config, Set)}
+ * on listeners implementing this interface, and the plain {@link #onConfigUpdated(Config)} on all
+ * other listeners.  Configs that cannot determine the delta keep calling {@link #onConfigUpdated(Config)}
+ * which must still be treated as a full update.
+ */
+public interface KeyedConfigListener extends ConfigListener {
+    /**
+     * Notify the listener that only the provided keys of a config have changed.  Keys may have been
+     * added, updated or removed.  The set may contain keys whose effective value did not change, but
+     * will never omit a key whose value did change.
+     *
+     * @param config
+     * @param changedKeys Unmodifiable set of keys that were added, changed or removed
+     */
+    default void onConfigUpdated(Config config, Set<String> changedKeys) {
+        onConfigUpdated(config);
+    }
+}
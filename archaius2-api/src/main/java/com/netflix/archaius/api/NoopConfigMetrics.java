@@ -0,0 +1,44 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.api;
+
+/**
+ * ConfigMetrics that discards all metrics, see {@link ConfigMetrics#noop()}
+ */
+final class NoopConfigMetrics implements ConfigMetrics {
+    static final NoopConfigMetrics INSTANCE = new NoopConfigMetrics();
+
+    private static final Timer TIMER = (duration, units) -> {};
+    private static final Counter COUNTER = amount -> {};
+    private static final Gauge GAUGE = value -> {};
+
+    private NoopConfigMetrics() {}
+
+    @Override
+    public Timer timer(String name, String source) {
+        return TIMER;
+    }
+
+    @Override
+    public Counter counter(String name, String source) {
+        return COUNTER;
+    }
+
+    @Override
+    public Gauge gauge(String name, String source) {
+        return GAUGE;
+    }
+}
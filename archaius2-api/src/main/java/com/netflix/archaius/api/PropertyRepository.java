@@ -63,4 +63,36 @@ public interface PropertyRepository {
     default <K, V> Property<Map<K, V>> getMap(String key, Class<K> mapKeyType, Class<V> mapValueType) {
         return get(key, ArchaiusType.forMapOf(mapKeyType, mapValueType));
     }
+
+    /**
+     * Fetch an int property that falls back to the provided default when the key isn't set.  Use
+     * {@link IntProperty#getAsInt()} to read the value without boxing.
+     */
+    default IntProperty getInt(String key, int defaultValue) {
+        return IntProperty.from(get(key, Integer.class).orElse(defaultValue));
+    }
+
+    /**
+     * Fetch a long property that falls back to the provided default when the key isn't set.  Use
+     * {@link LongProperty#getAsLong()} to read the value without boxing.
+     */
+    default LongProperty getLong(String key, long defaultValue) {
+        return LongProperty.from(get(key, Long.class).orElse(defaultValue));
+    }
+
+    /**
+     * Fetch a boolean property that falls back to the provided default when the key isn't set.  Use
+     * {@link BooleanProperty#getAsBoolean()} to read the value without boxing.
+     */
+    default BooleanProperty getBoolean(String key, boolean defaultValue) {
+        return BooleanProperty.from(get(key, Boolean.class).orElse(defaultValue));
+    }
+
+    /**
+     * Fetch a double property that falls back to the provided default when the key isn't set.  Use
+     * {@link DoubleProperty#getAsDouble()} to read the value without boxing.
+     */
+    default DoubleProperty getDouble(String key, double defaultValue) {
+        return DoubleProperty.from(get(key, Double.class).orElse(defaultValue));
+    }
 }
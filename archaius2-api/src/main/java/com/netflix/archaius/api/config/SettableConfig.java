@@ -16,6 +16,7 @@
 package com.netflix.archaius.api.config;
 
 import java.util.Properties;
+import java.util.function.Consumer;
 
 import com.netflix.archaius.api.Config;
 
@@ -52,4 +53,39 @@ public interface SettableConfig extends Config {
      * @param propName
      */
     void clearProperty(String propName);
+
+    /**
+     * Apply a batch of changes as a single update.  All changes made through the {@link Mutator} become visible at
+     * once, and listeners and parent configs receive one update for the whole batch instead of one per property.
+     * Nothing is applied if the consumer throws.
+     * <p>
+     * The default implementation applies each change immediately through {@link #setProperty(String, Object)} and
+     * {@link #clearProperty(String)}, and so is neither atomic nor limited to one update.
+     *
+     * @param changes Callback making the changes through the provided mutator
+     */
+    default void update(Consumer<Mutator> changes) {
+        changes.accept(new Mutator() {
+            @Override
+            public <T> Mutator setProperty(String propName, T propValue) {
+                SettableConfig.this.setProperty(propName, propValue);
+                return this;
+            }
+
+            @Override
+            public Mutator clearProperty(String propName) {
+                SettableConfig.this.clearProperty(propName);
+                return this;
+            }
+        });
+    }
+
+    /**
+     * Changes to apply as part of {@link #update(Consumer)}.  A mutator is only valid during the callback.
+     */
+    interface Mutator {
+        <T> Mutator setProperty(String propName, T propValue);
+
+        Mutator clearProperty(String propName);
+    }
 }
@@ -14,7 +14,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Stream;
 
 /**
  * A {@code Decoder} implementation that also implements {@code TypeConverter.Registry}, and delegates to a supplied
@@ -72,16 +71,33 @@ abstract class AbstractRegistryDecoder implements Decoder, TypeConverter.Registr
         return converter;
     }
 
+    /**
+     * Resolve and cache the converters for the provided types ahead of time, so that the first decode of each type
+     * is a plain lookup.  Types for which no converter can be created are skipped.
+     */
+    public void warmUp(Iterable<? extends Type> types) {
+        for (Type type : types) {
+            try {
+                getOrCreateConverter(type);
+            } catch (RuntimeException e) {
+                // Left for the first decode to report
+            }
+        }
+    }
+
     /**
      * Iterate through all TypeConverter#Factory's and return the first TypeConverter that matches
      * @param type
      * @return
      */
     private TypeConverter<?> resolve(Type type) {
-        return factories.stream()
-                .flatMap(factory -> factory.get(type, this).map(Stream::of).orElseGet(Stream::empty))
-                .findFirst()
-                .orElseGet(() -> findValueOfTypeConverter(type));
+        for (TypeConverter.Factory factory : factories) {
+            Optional<TypeConverter<?>> converter = factory.get(type, this);
+            if (converter.isPresent()) {
+                return converter.get();
+            }
+        }
+        return findValueOfTypeConverter(type);
     }
 
     /**
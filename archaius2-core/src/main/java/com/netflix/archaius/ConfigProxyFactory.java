@@ -11,8 +11,6 @@ import com.netflix.archaius.api.annotations.DefaultValue;
 import com.netflix.archaius.api.annotations.PropertyName;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.SystemUtils;
-import org.apache.commons.lang3.text.StrLookup;
-import org.apache.commons.lang3.text.StrSubstitutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +23,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -34,6 +33,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -95,6 +95,11 @@ import java.util.stream.Collectors;
  * <p>
  * Note that an application should normally have just one instance of ConfigProxyFactory
  * and PropertyFactory since PropertyFactory caches {@link com.netflix.archaius.api.Property} objects.
+ * <p>
+ * Proxies are normally implemented with {@link Proxy}, which looks up the invoked method in a map on every call.
+ * Setting {@value #GENERATE_PROXY_CLASSES} to true in the Config makes the factory generate a concrete class per
+ * interface instead, in which each method calls its value getter directly.  Interfaces that don't qualify for a
+ * generated class, such as non-public interfaces, keep using {@link Proxy}.
  * 
  * @see Configuration
  */
@@ -111,6 +116,7 @@ public class ConfigProxyFactory {
       */
     private static final Map<Config, Integer> FACTORIES_COUNT = Collections.synchronizedMap(new WeakHashMap<>());
     private static final String EXCESSIVE_PROXIES_LIMIT = "archaius.excessiveProxiesLogging.limit";
+    static final String GENERATE_PROXY_CLASSES = "archaius.configProxy.generateClasses";
 
     /**
      * Per-factory count of proxies, indexed by implemented interface and prefix. Because this count is kept per-proxy,
@@ -125,7 +131,10 @@ public class ConfigProxyFactory {
     private final PropertyRepository propertyRepository;
     private final Config config;
     private final int excessiveProxyLimit;
+    private final boolean generateProxyClasses;
 
+    /** Return types of the property methods of all proxies created by this factory, for {@link #warmUpConverters()} */
+    private final Set<Type> propertyTypes = ConcurrentHashMap.newKeySet();
 
     /**
      * Build a proxy factory from the provided config, decoder and PropertyFactory. Normal usage from most applications
@@ -142,6 +151,7 @@ public class ConfigProxyFactory {
         this.config = config;
         this.propertyRepository = factory;
         excessiveProxyLimit = config.getInteger(EXCESSIVE_PROXIES_LIMIT, 5);
+        generateProxyClasses = config.getBoolean(GENERATE_PROXY_CLASSES, false);
 
         warnWhenTooMany(FACTORIES_COUNT, config, excessiveProxyLimit, () -> String.format("ProxyFactory(Config:%s)", config.hashCode()));
     }
@@ -187,6 +197,31 @@ public class ConfigProxyFactory {
         return newProxy(type, initialPrefix, annot != null && annot.immutable());
     }
     
+    /**
+     * Resolve the decoder's {@link TypeConverter}s for the return types of all proxies created by this factory so far,
+     * so that the first read of each property doesn't have to.  Meant to be called once during startup, after the
+     * application's config proxies have been created.
+     */
+    public void warmUpConverters() {
+        for (Type type : propertyTypes) {
+            warmUpConverter(decoder, type);
+            if (config.getDecoder() != decoder) {
+                // Properties are decoded by the Config's decoder, which is normally the same
+                warmUpConverter(config.getDecoder(), type);
+            }
+        }
+    }
+
+    private static void warmUpConverter(Decoder decoder, Type type) {
+        if (decoder instanceof TypeConverter.Registry) {
+            try {
+                ((TypeConverter.Registry) decoder).get(type);
+            } catch (RuntimeException e) {
+                LOG.debug("Unable to resolve a converter for `{}`", type, e);
+            }
+        }
+    }
+
     /**
      * Encapsulate the invocation of a single method of the interface
      */
@@ -246,6 +281,15 @@ public class ConfigProxyFactory {
             }
         }
 
+        if (generateProxyClasses) {
+            // The generated object shares the invokers, and toString(), with the JDK proxy. Default methods are
+            // still bound to the JDK proxy, which behaves the same.
+            T generatedObject = ProxyClassGenerator.newInstance(type, proxyObject, invokers);
+            if (generatedObject != null) {
+                return generatedObject;
+            }
+        }
+
         return proxyObject;
     }
 
@@ -304,6 +348,8 @@ public class ConfigProxyFactory {
                 propertyValueGetter = createInterfaceProperty(propName, newProxy(returnType, propName, immutable));
 
             } else if (m.getParameterCount() > 0) {
+                propertyTypes.add(m.getGenericReturnType());
+
                 // A parameterized property. Note that this requires a @PropertyName annotation to extract the interpolation positions!
                 if (nameAnnot == null) {
                     throw new IllegalArgumentException("Missing @PropertyName annotation on " + m.getDeclaringClass().getName() + "#" + m.getName());
@@ -321,6 +367,8 @@ public class ConfigProxyFactory {
                 propertyValueGetter = createParameterizedProperty(m.getGenericReturnType(), propertyNameTemplate, defaultValueSupplier);
 
             } else {
+                propertyTypes.add(m.getGenericReturnType());
+
                 // Anything else.
                 propertyValueGetter = createScalarProperty(m.getGenericReturnType(), propName, defaultValueSupplier);
             }
@@ -444,6 +492,15 @@ public class ConfigProxyFactory {
     protected <T> PropertyValueGetter<T> createParameterizedProperty(final Type returnType, final String propertyNameTemplate, Function<Object[], T> defaultValueSupplier) {
         LOG.debug("Creating parameterized property `{}` for type `{}`", propertyNameTemplate, returnType);
 
+        // Determine the actual property name by replacing with arguments using the argument index
+        // to the method.  For example,
+        //      @PropertyName(name="foo.${1}.${0}")
+        //      String getFooValue(String arg0, Integer arg1)
+        //
+        // called as getFooValue("bar", 1) would look for the property 'foo.1.bar'
+        final PropertyNameTemplate template = PropertyNameTemplate.compile(propertyNameTemplate);
+        final ParameterizedPropertyCache properties = new ParameterizedPropertyCache();
+
         return args -> {
             if (args == null) {
                 // Why would args be null if this is a parameterized property? Because toString() abuses its
@@ -454,17 +511,14 @@ public class ConfigProxyFactory {
                 return defaultValueSupplier.apply(null);
             }
 
-            // Determine the actual property name by replacing with arguments using the argument index
-            // to the method.  For example,
-            //      @PropertyName(name="foo.${1}.${0}")
-            //      String getFooValue(String arg0, Integer arg1)
-            //
-            // called as getFooValue("bar", 1) would look for the property 'foo.1.bar'
-            String interpolatedPropertyName = new StrSubstitutor(new ArrayLookup<>(args), "${", "}", '$')
-                    .replace(propertyNameTemplate);
+            Property<?> property = properties.get(args);
+            if (property == null) {
+                property = propertyRepository.get(template.interpolate(args), returnType);
+                properties.put(args, property);
+            }
 
             //noinspection unchecked
-            T result = (T) propertyRepository.get(interpolatedPropertyName, returnType).get();
+            T result = (T) property.get();
             if (result == null) {
                 result = defaultValueSupplier.apply(args);
             }
@@ -606,29 +660,58 @@ public class ConfigProxyFactory {
         }
     }
 
-    /** Implement apache-commons StrLookup by interpreting the key as an index into an array */
-    private static class ArrayLookup<V> extends StrLookup<V> {
-        private final V[] elements;
+    /**
+     * Bounded cache from the arguments of a parameterized method to the Property for the interpolated name, so repeated
+     * calls with the same arguments neither build the name nor look the Property up in the PropertyRepository.
+     * Slots are direct mapped by the hash of the arguments and a colliding entry simply replaces the previous one.
+     * Only calls where all arguments are immutable values are cached.
+     */
+    private static final class ParameterizedPropertyCache {
+        private static final int SIZE = 256;
+
+        private final Entry[] entries = new Entry[SIZE];
 
-        private ArrayLookup(V[] elements) {
-            super();
-            this.elements = elements;
+        Property<?> get(Object[] args) {
+            Entry entry = entries[slot(args)];
+            return entry != null && Arrays.equals(entry.args, args) ? entry.property : null;
         }
 
-        @Override
-        public String lookup(String key) {
-            if (elements == null || elements.length == 0 || StringUtils.isBlank(key)) {
-                return null;
+        void put(Object[] args, Property<?> property) {
+            for (Object arg : args) {
+                if (!isValue(arg)) {
+                    return;
+                }
             }
+            // Entries are immutable, so a racy write publishes them safely
+            entries[slot(args)] = new Entry(args.clone(), property);
+        }
 
-            try {
-                int index = Integer.parseInt(key);
-                if (index < 0 || index >= elements.length || elements[index] == null) {
-                    return null;
-                }
-                return elements[index].toString();
-            } catch (NumberFormatException e) {
-                return null;
+        private static int slot(Object[] args) {
+            int h = Arrays.hashCode(args);
+            return (h ^ (h >>> 16)) & (SIZE - 1);
+        }
+
+        private static boolean isValue(Object arg) {
+            return arg == null
+                    || arg instanceof String
+                    || arg instanceof Integer
+                    || arg instanceof Long
+                    || arg instanceof Short
+                    || arg instanceof Byte
+                    || arg instanceof Double
+                    || arg instanceof Float
+                    || arg instanceof Character
+                    || arg instanceof Boolean
+                    || arg instanceof Enum;
+        }
+
+        private static final class Entry {
+            final Object[] args;
+            final Property<?> property;
+
+            Entry(Object[] args, Property<?> property) {
+                this.args = args;
+                this.property = property;
             }
         }
     }
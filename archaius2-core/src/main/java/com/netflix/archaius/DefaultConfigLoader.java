@@ -26,7 +26,7 @@ import com.netflix.archaius.api.exceptions.ConfigException;
 import com.netflix.archaius.cascade.NoCascadeStrategy;
 import com.netflix.archaius.config.DefaultCompositeConfig;
 import com.netflix.archaius.config.MapConfig;
-import com.netflix.archaius.interpolate.CommonsStrInterpolator;
+import com.netflix.archaius.interpolate.CompiledStrInterpolator;
 import com.netflix.archaius.interpolate.ConfigStrLookup;
 import com.netflix.archaius.readers.PropertiesConfigReader;
 
@@ -58,7 +58,7 @@ public class DefaultConfigLoader implements ConfigLoader {
                                                             return null;
                                                         }
                                                     };
-    private static final StrInterpolator DEFAULT_INTERPOLATOR = CommonsStrInterpolator.INSTANCE;
+    private static final StrInterpolator DEFAULT_INTERPOLATOR = CompiledStrInterpolator.INSTANCE;
                                                     
     public static class Builder {
         private Set<ConfigReader>  loaders         = new HashSet<ConfigReader>();
@@ -15,6 +15,7 @@
  */
 package com.netflix.archaius;
 
+import com.netflix.archaius.api.ArchaiusType;
 import com.netflix.archaius.api.TypeConverter;
 import com.netflix.archaius.converters.ArrayTypeConverterFactory;
 import com.netflix.archaius.converters.DefaultCollectionsTypeConverterFactory;
@@ -22,6 +23,7 @@ import com.netflix.archaius.converters.DefaultTypeConverterFactory;
 import com.netflix.archaius.converters.EnumTypeConverterFactory;
 
 import javax.inject.Singleton;
+import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -33,9 +35,25 @@ public class DefaultDecoder extends AbstractRegistryDecoder {
             DefaultCollectionsTypeConverterFactory.INSTANCE,
             ArrayTypeConverterFactory.INSTANCE,
             EnumTypeConverterFactory.INSTANCE));
+
+    /** Collection types resolved when the decoder is created, in addition to all scalar types */
+    private static final List<Type> COMMON_COLLECTION_TYPES = Collections.unmodifiableList(Arrays.asList(
+            ArchaiusType.forListOf(String.class),
+            ArchaiusType.forListOf(Integer.class),
+            ArchaiusType.forListOf(Long.class),
+            ArchaiusType.forSetOf(String.class),
+            ArchaiusType.forSetOf(Integer.class),
+            ArchaiusType.forSetOf(Long.class),
+            ArchaiusType.forMapOf(String.class, String.class),
+            ArchaiusType.forMapOf(String.class, Integer.class),
+            ArchaiusType.forMapOf(String.class, Long.class),
+            ArchaiusType.forMapOf(String.class, Boolean.class)));
+
     public static final DefaultDecoder INSTANCE = new DefaultDecoder();
 
     private DefaultDecoder() {
         super(DEFAULT_FACTORIES);
+        warmUp(DefaultTypeConverterFactory.INSTANCE.getTypes());
+        warmUp(COMMON_COLLECTION_TYPES);
     }
 }
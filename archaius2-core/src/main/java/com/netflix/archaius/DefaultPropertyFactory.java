@@ -1,7 +1,12 @@
 package com.netflix.archaius;
 
+import com.netflix.archaius.api.BooleanProperty;
 import com.netflix.archaius.api.Config;
-import com.netflix.archaius.api.ConfigListener;
+import com.netflix.archaius.api.ConfigMetrics;
+import com.netflix.archaius.api.DoubleProperty;
+import com.netflix.archaius.api.IntProperty;
+import com.netflix.archaius.api.KeyedConfigListener;
+import com.netflix.archaius.api.LongProperty;
 import com.netflix.archaius.api.Property;
 import com.netflix.archaius.api.PropertyContainer;
 import com.netflix.archaius.api.PropertyFactory;
@@ -12,18 +17,27 @@ import org.slf4j.LoggerFactory;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicStampedReference;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
+public class DefaultPropertyFactory implements PropertyFactory, KeyedConfigListener {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultPropertyFactory.class);
     
     /**
@@ -35,6 +49,10 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
         return new DefaultPropertyFactory(config);
     }
 
+    private static final AtomicInteger[] NO_DEPENDENCIES = new AtomicInteger[0];
+    private static final String[] NO_KEYS = new String[0];
+    private static final Comparator<Subscriber> SUBSCRIPTION_ORDER = Comparator.comparingLong(s -> s.order);
+
     /**
      * Config from which properties are retrieved.  Config may be a composite.
      */
@@ -44,6 +62,12 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
      * Cache of properties so PropertyContainer may be re-used
      */
     private final ConcurrentMap<KeyAndType<?>, Property<?>> properties = new ConcurrentHashMap<>();
+
+    /**
+     * Cache of primitive properties, which are refreshed eagerly by a listener when tracking dependencies and on the
+     * first read after a change of the config otherwise
+     */
+    private final ConcurrentMap<KeyAndDefault, Property<?>> primitiveProperties = new ConcurrentHashMap<>();
     
     /**
      * Monotonically incrementing version number whenever a change in the Config
@@ -58,8 +82,57 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
      */
     private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * When enabled, properties record the keys (including interpolated references) their value was resolved from,
+     * and key level updates of the config only invalidate the properties that depend on one of the changed keys.
+     */
+    private final boolean trackDependencies;
+
+    /**
+     * Version number per key that at least one property depends on.  Only used when tracking dependencies.
+     */
+    private final ConcurrentMap<String, AtomicInteger> keyVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Version for properties whose dependencies couldn't be determined, such as a reference with a nested
+     * variable name.  These are invalidated on any change.
+     */
+    private final AtomicInteger anyKeyVersion = new AtomicInteger();
+
+    /**
+     * Number of properties whose cached value depends on any key, including values still being resolved.  The any key
+     * version is only incremented while there is at least one.
+     */
+    private final AtomicInteger anyKeyDependents = new AtomicInteger();
+
+    /**
+     * Listeners by the keys their property currently depends on, and listeners of properties that depend on any key.
+     * Only used when tracking dependencies, so that a key level update only runs the listeners of the affected
+     * properties.
+     */
+    private final ConcurrentMap<String, Set<Subscriber>> subscribersByKey = new ConcurrentHashMap<>();
+    private final Set<Subscriber> anyKeySubscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong subscriberOrder = new AtomicLong();
+
+    private final ThreadLocal<DependencyCollector> activeCollector = new ThreadLocal<>();
+
+    // Metrics are resolved once in setMetrics() instead of on every invalidation
+    private volatile ConfigMetrics.Counter invalidationCounter = ConfigMetrics.noop().counter(null, null);
+    private volatile ConfigMetrics.Gauge listenersGauge = ConfigMetrics.noop().gauge(null, null);
+    private volatile ConfigMetrics.Timer fanOutTimer = ConfigMetrics.noop().timer(null, null);
+
     public DefaultPropertyFactory(Config config) {
+        this(config, false);
+    }
+
+    /**
+     * @param config Config from which properties are retrieved
+     * @param trackDependencies Enable dependency aware invalidation, where a key level update of the config only
+     *                          invalidates and notifies properties whose value depends on one of the changed keys
+     */
+    public DefaultPropertyFactory(Config config, boolean trackDependencies) {
         this.config = config;
+        this.trackDependencies = trackDependencies;
         this.config.addListener(this);
     }
 
@@ -140,6 +213,19 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
         };
     }
     
+    /**
+     * Set the metrics to which invalidations and the time spent running property listeners are reported
+     */
+    public void setMetrics(ConfigMetrics metrics) {
+        if (metrics == null) {
+            metrics = ConfigMetrics.noop();
+        }
+        String source = config.getName();
+        this.invalidationCounter = metrics.counter(ConfigMetrics.PROPERTY_INVALIDATIONS, source);
+        this.listenersGauge = metrics.gauge(ConfigMetrics.PROPERTY_LISTENERS, source);
+        this.fanOutTimer = metrics.timer(ConfigMetrics.PROPERTY_FAN_OUT, source);
+    }
+
     @Override
     public void onConfigAdded(Config config) {
         invalidate();
@@ -155,6 +241,16 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
         invalidate();
     }
 
+    @Override
+    public void onConfigUpdated(Config config, Set<String> changedKeys) {
+        // Deltas forwarded from other configs (ex. the parent of a prefixed view) are in a different key space
+        if (trackDependencies && config == this.config) {
+            invalidate(changedKeys);
+        } else {
+            invalidate();
+        }
+    }
+
     @Override
     public void onError(Throwable error, Config config) {
         // TODO
@@ -168,7 +264,150 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
         // We expect a small set of callbacks and invoke all of them whenever there is any change
         // in the configuration regardless of change. The blanket update is done since we don't track
         // a dependency graph of replacements.
+        runListeners();
+    }
+
+    /**
+     * Invalidate only the properties that depend on any of the provided keys.  Falls back to a full
+     * invalidation when dependencies aren't being tracked.
+     */
+    public void invalidate(Collection<String> changedKeys) {
+        if (!trackDependencies) {
+            invalidate();
+            return;
+        }
+
+        boolean affected = false;
+        // Run the listeners in the order they subscribed in
+        Set<Subscriber> subscribers = new TreeSet<>(SUBSCRIPTION_ORDER);
+        for (String key : changedKeys) {
+            AtomicInteger keyVersion = keyVersions.get(key);
+            if (keyVersion != null) {
+                keyVersion.incrementAndGet();
+                affected = true;
+            }
+            Set<Subscriber> keySubscribers = subscribersByKey.get(key);
+            if (keySubscribers != null) {
+                subscribers.addAll(keySubscribers);
+            }
+        }
+        if (anyKeyDependents.get() > 0) {
+            anyKeyVersion.incrementAndGet();
+            affected = true;
+            subscribers.addAll(anyKeySubscribers);
+        }
+
+        if (affected) {
+            runListeners(subscribers);
+        }
+    }
+
+    private void runListeners() {
+        runListeners(listeners);
+    }
+
+    private void runListeners(Collection<? extends Runnable> listeners) {
+        invalidationCounter.increment();
+        listenersGauge.set(listeners.size());
+        long start = System.nanoTime();
         listeners.forEach(Runnable::run);
+        fanOutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Add a listener of the property, to be run on invalidations of the property
+     */
+    private Property.Subscription addSubscriber(PropertyImpl<?> property, Runnable action) {
+        if (!trackDependencies) {
+            listeners.add(action);
+            return () -> listeners.remove(action);
+        }
+        Subscriber subscriber = new Subscriber(property, action);
+        listeners.add(subscriber);
+        if (!subscriber.index()) {
+            subscriber.run();
+        }
+        return subscriber::unsubscribe;
+    }
+
+    /**
+     * Listener of a property that is indexed by the keys the property depended on when last resolved.  The index is
+     * updated every time the listener runs, since the value of a key can reference different keys over time.
+     */
+    private final class Subscriber implements Runnable {
+        private final PropertyImpl<?> property;
+        private final Runnable action;
+        private final long order = subscriberOrder.incrementAndGet();
+        private String[] indexedKeys = NO_KEYS;
+        private boolean indexedAnyKey = false;
+        private boolean active = true;
+
+        Subscriber(PropertyImpl<?> property, Runnable action) {
+            this.property = property;
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            action.run();
+            if (!index()) {
+                // A dependency that changed before it was indexed didn't run this listener, so run it once more.  Any
+                // change after the listener was indexed again runs it through the next invalidation instead, which
+                // keeps a listener from spinning while its dependencies are updated continuously.
+                action.run();
+                index();
+            }
+        }
+
+        /**
+         * Index the listener by the current dependencies of its property
+         * @return False if one of the dependencies changed since the property was resolved
+         */
+        synchronized boolean index() {
+            if (!active) {
+                return true;
+            }
+            CachedValue<?> cached = property.cache.get();
+            if (!Arrays.equals(indexedKeys, cached.keys)) {
+                for (String key : indexedKeys) {
+                    removeFromKey(key);
+                }
+                for (String key : cached.keys) {
+                    subscribersByKey.compute(key, (k, subscribers) -> {
+                        Set<Subscriber> result = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+                        result.add(this);
+                        return result;
+                    });
+                }
+                indexedKeys = cached.keys;
+            }
+            if (indexedAnyKey != cached.dependsOnAnyKey) {
+                if (cached.dependsOnAnyKey) {
+                    anyKeySubscribers.add(this);
+                } else {
+                    anyKeySubscribers.remove(this);
+                }
+                indexedAnyKey = cached.dependsOnAnyKey;
+            }
+            return cached.version == currentVersion(cached.dependencies);
+        }
+
+        synchronized void unsubscribe() {
+            active = false;
+            listeners.remove(this);
+            for (String key : indexedKeys) {
+                removeFromKey(key);
+            }
+            anyKeySubscribers.remove(this);
+            indexedKeys = NO_KEYS;
+        }
+
+        private void removeFromKey(String key) {
+            subscribersByKey.computeIfPresent(key, (k, subscribers) -> {
+                subscribers.remove(this);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
     }
     
     protected Config getConfig() {
@@ -185,8 +424,203 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
         return getFromSupplier(key, type, () -> config.get(type, key, null));
     }
 
+    @Override
+    public IntProperty getInt(String key, int defaultValue) {
+        return (IntProperty) primitiveProperties.computeIfAbsent(new KeyAndDefault(key, Integer.class, defaultValue),
+                (ignore) -> register(new IntPropertyImpl(get(key, Integer.class).orElse(defaultValue), lazyVersion())));
+    }
+
+    @Override
+    public LongProperty getLong(String key, long defaultValue) {
+        return (LongProperty) primitiveProperties.computeIfAbsent(new KeyAndDefault(key, Long.class, defaultValue),
+                (ignore) -> register(new LongPropertyImpl(get(key, Long.class).orElse(defaultValue), lazyVersion())));
+    }
+
+    @Override
+    public BooleanProperty getBoolean(String key, boolean defaultValue) {
+        return (BooleanProperty) primitiveProperties.computeIfAbsent(new KeyAndDefault(key, Boolean.class, defaultValue),
+                (ignore) -> register(new BooleanPropertyImpl(get(key, Boolean.class).orElse(defaultValue), lazyVersion())));
+    }
+
+    @Override
+    public DoubleProperty getDouble(String key, double defaultValue) {
+        return (DoubleProperty) primitiveProperties.computeIfAbsent(new KeyAndDefault(key, Double.class, defaultValue),
+                (ignore) -> register(new DoublePropertyImpl(get(key, Double.class).orElse(defaultValue), lazyVersion())));
+    }
+
+    /**
+     * Without dependency tracking every change of the config invalidates every property, so a listener per primitive
+     * property would decode all of them on every change.  They are refreshed on their next read instead.
+     */
+    private <P extends PrimitivePropertyImpl<?>> P register(P property) {
+        if (trackDependencies) {
+            addSubscriber((PropertyImpl<?>) property.delegate, property);
+        }
+        return property;
+    }
+
+    /** @return Version a primitive property checks on read, or null if it is refreshed by a listener */
+    private AtomicInteger lazyVersion() {
+        return trackDependencies ? null : masterVersion;
+    }
+
     private <T> Property<T> getFromSupplier(String key, Type type, Supplier<T> supplier) {
-        return getFromSupplier(new KeyAndType<>(key, type), supplier);
+        return getFromSupplier(new KeyAndType<>(key, type), trackDependencies ? tracked(key, supplier) : supplier);
+    }
+
+    /**
+     * Wrap a supplier reading the value for key so that the key is recorded as a dependency of the property
+     * being resolved.
+     */
+    private <T> Supplier<T> tracked(String key, Supplier<T> supplier) {
+        return () -> {
+            DependencyCollector collector = activeCollector.get();
+            if (collector != null) {
+                collector.recordKey(key);
+            }
+            return supplier.get();
+        };
+    }
+
+    private int currentVersion(AtomicInteger[] dependencies) {
+        int version = masterVersion.get();
+        for (AtomicInteger dependency : dependencies) {
+            version += dependency.get();
+        }
+        return version;
+    }
+
+    /**
+     * Collects the keys read while resolving a single property, along with the sum of their versions at the time
+     * they were read.  Keys are recorded before their value is read so that a concurrent update always results in
+     * a newer version.
+     */
+    private final class DependencyCollector {
+        private final Map<String, AtomicInteger> dependencies = new LinkedHashMap<>();
+        private boolean dependsOnAnyKey = false;
+        private int version;
+
+        private DependencyCollector(int masterVersion) {
+            this.version = masterVersion;
+        }
+
+        <T> T collect(Supplier<T> supplier) {
+            DependencyCollector previous = activeCollector.get();
+            activeCollector.set(this);
+            try {
+                return supplier.get();
+            } finally {
+                if (previous == null) {
+                    activeCollector.remove();
+                } else {
+                    activeCollector.set(previous);
+                }
+            }
+        }
+
+        void recordKey(String key) {
+            if (dependencies.containsKey(key)) {
+                return;
+            }
+            AtomicInteger keyVersion = keyVersions.computeIfAbsent(key, k -> new AtomicInteger());
+            dependencies.put(key, keyVersion);
+            version += keyVersion.get();
+
+            Object rawValue = config.getRawPropertyUninstrumented(key);
+            if (rawValue instanceof String) {
+                recordReferences((String) rawValue);
+            }
+        }
+
+        private void recordAnyKey() {
+            if (!dependsOnAnyKey) {
+                dependsOnAnyKey = true;
+                // Counted right away so that updates during the rest of the resolution increment the any key version
+                anyKeyDependents.incrementAndGet();
+                version += anyKeyVersion.get();
+            }
+        }
+
+        /** Record all ${key} and ${key:default} references of a value, following them transitively. */
+        private void recordReferences(String value) {
+            int start = value.indexOf("${");
+            while (start >= 0) {
+                int end = findClosingBrace(value, start + 2);
+                if (end < 0) {
+                    return;
+                }
+                String expression = value.substring(start + 2, end);
+                int delimiter = expression.indexOf(':');
+                String name = delimiter >= 0 ? expression.substring(0, delimiter) : expression;
+                if (name.contains("${")) {
+                    // The referenced key is only known after interpolation
+                    recordAnyKey();
+                } else {
+                    recordKey(name);
+                }
+                if (delimiter >= 0) {
+                    recordReferences(expression.substring(delimiter + 1));
+                }
+                start = value.indexOf("${", end + 1);
+            }
+        }
+
+        private int findClosingBrace(String value, int from) {
+            int depth = 1;
+            for (int i = from; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '$' && i + 1 < value.length() && value.charAt(i + 1) == '{') {
+                    depth++;
+                    i++;
+                } else if (c == '}' && --depth == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int getVersion() {
+            return version;
+        }
+
+        String[] getKeys() {
+            return dependencies.isEmpty() ? NO_KEYS : dependencies.keySet().toArray(NO_KEYS);
+        }
+
+        AtomicInteger[] getDependencies() {
+            if (!dependsOnAnyKey) {
+                return dependencies.values().toArray(NO_DEPENDENCIES);
+            }
+            AtomicInteger[] result = dependencies.values().toArray(new AtomicInteger[dependencies.size() + 1]);
+            result[dependencies.size()] = anyKeyVersion;
+            return result;
+        }
+    }
+
+    /**
+     * Immutable snapshot of a resolved value and the version it was resolved at.  The version is the sum of the
+     * master version and the versions of all the dependencies.
+     */
+    private static final class CachedValue<T> {
+        private final T value;
+        private final int version;
+        private final AtomicInteger[] dependencies;
+
+        /** Keys the value was resolved from, in addition to the any key dependency */
+        private final String[] keys;
+        private final boolean dependsOnAnyKey;
+
+        CachedValue(T value, int version, AtomicInteger[] dependencies) {
+            this(value, version, dependencies, NO_KEYS, false);
+        }
+
+        CachedValue(T value, int version, AtomicInteger[] dependencies, String[] keys, boolean dependsOnAnyKey) {
+            this.value = value;
+            this.version = version;
+            this.dependencies = dependencies;
+            this.keys = keys;
+            this.dependsOnAnyKey = dependsOnAnyKey;
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -197,7 +631,7 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
     private final class PropertyImpl<T> implements Property<T> {
         private final KeyAndType<T> keyAndType;
         private final Supplier<T> supplier;
-        private final AtomicStampedReference<T> cache = new AtomicStampedReference<>(null, -1);
+        private final AtomicReference<CachedValue<T>> cache = new AtomicReference<>(new CachedValue<>(null, -1, NO_DEPENDENCIES));
         private final ConcurrentMap<PropertyListener<?>, Subscription> oldSubscriptions = new ConcurrentHashMap<>();
         
         public PropertyImpl(KeyAndType<T> keyAndType, Supplier<T> supplier) {
@@ -207,24 +641,34 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
         
         @Override
         public T get() {
-            int cacheVersion = cache.getStamp();
-            int latestVersion  = masterVersion.get();
+            CachedValue<T> cached = cache.get();
+            int latestVersion = currentVersion(cached.dependencies);
             
-            if (cacheVersion != latestVersion) {
-                T currentValue = cache.getReference();
+            if (cached.version != latestVersion) {
+                DependencyCollector collector = trackDependencies ? new DependencyCollector(masterVersion.get()) : null;
                 T newValue = null;
                 try {
-                    newValue = supplier.get();
+                    newValue = collector == null ? supplier.get() : collector.collect(supplier);
                 } catch (Exception e) {
                     LOG.warn("Unable to get current version of property '{}'", keyAndType.key, e);
                 }
-                
-                if (cache.compareAndSet(currentValue, newValue, cacheVersion, latestVersion)) {
+
+                CachedValue<T> updated = collector == null
+                        ? new CachedValue<>(newValue, latestVersion, NO_DEPENDENCIES)
+                        : new CachedValue<>(newValue, collector.getVersion(), collector.getDependencies(),
+                                collector.getKeys(), collector.dependsOnAnyKey);
+                boolean replaced = cache.compareAndSet(cached, updated);
+                // The collector counted the new value as an any key dependent, uncount the value it replaced or
+                // the new value if it was discarded
+                if (replaced ? cached.dependsOnAnyKey : updated.dependsOnAnyKey) {
+                    anyKeyDependents.decrementAndGet();
+                }
+                if (replaced) {
                     // Possible race condition here but not important enough to warrant locking
                     return newValue;
                 }
             }
-            return cache.getReference();
+            return cache.get().value;
         }
 
         @Override
@@ -254,8 +698,7 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
                 }
             };
             
-            listeners.add(action);
-            return () -> listeners.remove(action);
+            return addSubscriber(this, action);
         }
 
         @Deprecated
@@ -286,15 +729,17 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public Property<T> orElseGet(String key) {
             if (!keyAndType.hasType()) {
                 throw new IllegalStateException("Type information lost due to map() operation.  All calls to orElse[Get] must be made prior to calling map");
             }
             KeyAndType<T> keyAndType = this.keyAndType.withKey(key);
-            Property<T> next = DefaultPropertyFactory.this.get(key, keyAndType.type);
+            PropertyImpl<T> next = (PropertyImpl<T>) DefaultPropertyFactory.this.<T>get(key, keyAndType.type);
+            // Read through the supplier so that the dependencies of the fallback are recorded for this property
             return new PropertyImpl<>(keyAndType, () -> {
                 T value = supplier.get();
-                return value != null ? value : next.get();
+                return value != null ? value : next.supplier.get();
             });
         }
 
@@ -316,6 +761,170 @@ public class DefaultPropertyFactory implements PropertyFactory, ConfigListener {
         }
     }
 
+    /**
+     * Base for the primitive property types.  The value is held in a volatile primitive field of the subclass, so that
+     * reads don't box.  The value is either refreshed from the delegate by a listener, or on read when the version it
+     * was refreshed at is no longer current.
+     */
+    private abstract static class PrimitivePropertyImpl<T> implements Property<T>, Runnable {
+        protected final Property<T> delegate;
+
+        /** Version checked on read, or null if the value is refreshed by a listener */
+        private final AtomicInteger latestVersion;
+        private volatile int version;
+
+        PrimitivePropertyImpl(Property<T> delegate, AtomicInteger latestVersion) {
+            this.delegate = delegate;
+            this.latestVersion = latestVersion;
+        }
+
+        /** The version is read before the value, so that a concurrent change leaves the refreshed value stale */
+        protected final void refresh() {
+            if (latestVersion == null) {
+                run();
+            } else {
+                int latest = latestVersion.get();
+                run();
+                version = latest;
+            }
+        }
+
+        protected final void refreshIfStale() {
+            if (latestVersion != null && latestVersion.get() != version) {
+                refresh();
+            }
+        }
+
+        @Override
+        public String getKey() {
+            return delegate.getKey();
+        }
+
+        @Override
+        public Subscription subscribe(Consumer<T> consumer) {
+            return delegate.subscribe(consumer);
+        }
+
+        @Override
+        public <S> Property<S> map(Function<T, S> mapper) {
+            return delegate.map(mapper);
+        }
+
+        @Override
+        public String toString() {
+            return "Property [Key=" + getKey() + "; value=" + get() + "]";
+        }
+    }
+
+    private static final class IntPropertyImpl extends PrimitivePropertyImpl<Integer> implements IntProperty {
+        private volatile int value;
+
+        IntPropertyImpl(Property<Integer> delegate, AtomicInteger latestVersion) {
+            super(delegate, latestVersion);
+            refresh();
+        }
+
+        @Override
+        public synchronized void run() {
+            value = delegate.get();
+        }
+
+        @Override
+        public int getAsInt() {
+            refreshIfStale();
+            return value;
+        }
+    }
+
+    private static final class LongPropertyImpl extends PrimitivePropertyImpl<Long> implements LongProperty {
+        private volatile long value;
+
+        LongPropertyImpl(Property<Long> delegate, AtomicInteger latestVersion) {
+            super(delegate, latestVersion);
+            refresh();
+        }
+
+        @Override
+        public synchronized void run() {
+            value = delegate.get();
+        }
+
+        @Override
+        public long getAsLong() {
+            refreshIfStale();
+            return value;
+        }
+    }
+
+    private static final class BooleanPropertyImpl extends PrimitivePropertyImpl<Boolean> implements BooleanProperty {
+        private volatile boolean value;
+
+        BooleanPropertyImpl(Property<Boolean> delegate, AtomicInteger latestVersion) {
+            super(delegate, latestVersion);
+            refresh();
+        }
+
+        @Override
+        public synchronized void run() {
+            value = delegate.get();
+        }
+
+        @Override
+        public boolean getAsBoolean() {
+            refreshIfStale();
+            return value;
+        }
+    }
+
+    private static final class DoublePropertyImpl extends PrimitivePropertyImpl<Double> implements DoubleProperty {
+        private volatile double value;
+
+        DoublePropertyImpl(Property<Double> delegate, AtomicInteger latestVersion) {
+            super(delegate, latestVersion);
+            refresh();
+        }
+
+        @Override
+        public synchronized void run() {
+            value = delegate.get();
+        }
+
+        @Override
+        public double getAsDouble() {
+            refreshIfStale();
+            return value;
+        }
+    }
+
+    private static final class KeyAndDefault {
+        private final String key;
+        private final Class<?> type;
+        private final Object defaultValue;
+
+        KeyAndDefault(String key, Class<?> type, Object defaultValue) {
+            this.key = key;
+            this.type = type;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, type, defaultValue);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof KeyAndDefault)) {
+                return false;
+            }
+            KeyAndDefault other = (KeyAndDefault) obj;
+            return Objects.equals(key, other.key) && type == other.type && Objects.equals(defaultValue, other.defaultValue);
+        }
+    }
+
     private static final class KeyAndType<T> {
         private final String key;
         private final Type type;
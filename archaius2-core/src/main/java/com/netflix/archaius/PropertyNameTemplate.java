@@ -0,0 +1,179 @@
+package com.netflix.archaius;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.text.StrLookup;
+import org.apache.commons.lang3.text.StrSubstitutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Property name template of a parameterized {@link com.netflix.archaius.api.annotations.PropertyName}, such as
+ * "foo.${1}.${0}", parsed once into literal and argument segments.  Interpolating the arguments of a method call is
+ * then a single pass over the segments instead of running a {@link StrSubstitutor} over the template.
+ * <p>
+ * The result is always the same as replacing with a StrSubstitutor looking up the arguments by index.  Templates
+ * using features beyond plain "${index}" references (escapes, default values, nested references) and argument values
+ * which themselves contain "${" are handled by falling back to the StrSubstitutor.
+ */
+final class PropertyNameTemplate {
+    private static final String PREFIX = "${";
+    private static final String SUFFIX = "}";
+
+    private final String template;
+
+    /** Literal text, or null when the segment is an argument reference */
+    private final String[] literals;
+
+    /** Argument index of each reference segment */
+    private final int[] indexes;
+
+    /** Original text of each reference segment, kept when the argument is missing */
+    private final String[] references;
+
+    private final boolean compiled;
+    private final int literalLength;
+
+    private PropertyNameTemplate(String template, List<String> literals, List<Integer> indexes, List<String> references, boolean compiled) {
+        this.template = template;
+        this.literals = literals.toArray(new String[0]);
+        this.indexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+        this.references = references.toArray(new String[0]);
+        this.compiled = compiled;
+        int length = 0;
+        for (String literal : this.literals) {
+            length += literal != null ? literal.length() : 0;
+        }
+        this.literalLength = length;
+    }
+
+    static PropertyNameTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<String> references = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < template.length()) {
+            int start = template.indexOf(PREFIX, pos);
+            if (start < 0) {
+                literal.append(template, pos, template.length());
+                break;
+            }
+            int end = template.indexOf(SUFFIX, start + PREFIX.length());
+            if (start > 0 && template.charAt(start - 1) == '$'
+                    || end >= 0 && template.substring(start + PREFIX.length(), end).contains(PREFIX)
+                    || end >= 0 && template.substring(start + PREFIX.length(), end).contains(":-")) {
+                // Escaped or nested references and default values are left to StrSubstitutor
+                return new PropertyNameTemplate(template, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), false);
+            }
+            if (end < 0) {
+                literal.append(template, pos, template.length());
+                break;
+            }
+
+            literal.append(template, pos, start);
+            String name = template.substring(start + PREFIX.length(), end);
+            int index = parseIndex(name);
+            if (index < 0) {
+                // Not a valid argument reference, so it is never replaced
+                literal.append(template, start, end + SUFFIX.length());
+            } else {
+                if (literal.length() > 0) {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                }
+                literals.add(null);
+                indexes.add(index);
+                references.add(template.substring(start, end + SUFFIX.length()));
+            }
+            pos = end + SUFFIX.length();
+        }
+        if (literal.length() > 0) {
+            literals.add(literal.toString());
+        }
+        return new PropertyNameTemplate(template, literals, indexes, references, true);
+    }
+
+    private static int parseIndex(String name) {
+        if (StringUtils.isBlank(name)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Replace all argument references in the template with the matching argument.  References to missing or null
+     * arguments are left as is.
+     */
+    String interpolate(Object[] args) {
+        if (!compiled) {
+            return substitute(args);
+        }
+
+        StringBuilder sb = new StringBuilder(literalLength + 8 * indexes.length);
+        int reference = 0;
+        for (String literal : literals) {
+            if (literal != null) {
+                sb.append(literal);
+                continue;
+            }
+
+            int index = indexes[reference];
+            Object arg = args != null && index < args.length ? args[index] : null;
+            if (arg == null) {
+                sb.append(references[reference++]);
+                continue;
+            }
+            reference++;
+
+            String value = arg.toString();
+            if (value.contains(PREFIX)) {
+                // StrSubstitutor would interpolate the value as well
+                return substitute(args);
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private String substitute(Object[] args) {
+        return new StrSubstitutor(new ArrayLookup<>(args), PREFIX, SUFFIX, '$').replace(template);
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    /** Implement apache-commons StrLookup by interpreting the key as an index into an array */
+    private static class ArrayLookup<V> extends StrLookup<V> {
+        private final V[] elements;
+
+        private ArrayLookup(V[] elements) {
+            super();
+            this.elements = elements;
+        }
+
+        @Override
+        public String lookup(String key) {
+            if (elements == null || elements.length == 0 || StringUtils.isBlank(key)) {
+                return null;
+            }
+
+            try {
+                int index = Integer.parseInt(key);
+                if (index < 0 || index >= elements.length || elements[index] == null) {
+                    return null;
+                }
+                return elements[index].toString();
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
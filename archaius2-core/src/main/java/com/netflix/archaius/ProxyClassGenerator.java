@@ -0,0 +1,521 @@
+package com.netflix.archaius;
+
+import com.netflix.archaius.ConfigProxyFactory.PropertyValueGetter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a concrete class per config interface as an alternative to {@link java.lang.reflect.Proxy}.  Each interface
+ * method of the generated class reads its {@link PropertyValueGetter} from a dedicated final field and calls it directly,
+ * so there is no Method lookup, no reflective dispatch and, for methods without arguments, no argument array.
+ * <p>
+ * The generated class keeps a reference to the JDK proxy built for the same interface, which it uses for toString().
+ * Interfaces that cannot be implemented from a generated class (non-public types, too many arguments, clashing
+ * signatures) are reported as unsupported and callers fall back to the JDK proxy.
+ */
+final class ProxyClassGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(ProxyClassGenerator.class);
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String GETTER = internalName(PropertyValueGetter.class);
+    private static final String GETTER_DESCRIPTOR = "L" + GETTER + ";";
+    private static final String CONSTRUCTOR_DESCRIPTOR = "(Ljava/lang/Object;[" + GETTER_DESCRIPTOR + ")V";
+    private static final String GENERATED_PACKAGE = "com/netflix/archaius/generated/";
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private static final ClassValue<Optional<GeneratedClass>> CLASSES = new ClassValue<Optional<GeneratedClass>>() {
+        @Override
+        protected Optional<GeneratedClass> computeValue(Class<?> type) {
+            try {
+                return Optional.of(generate(type));
+            } catch (Exception | LinkageError e) {
+                LOG.debug("Unable to generate a proxy class for {}, using a JDK proxy instead", type.getName(), e);
+                return Optional.empty();
+            }
+        }
+    };
+
+    private ProxyClassGenerator() {
+    }
+
+    /**
+     * Create an instance of the generated class for type.
+     *
+     * @param type The config interface
+     * @param delegate JDK proxy for the same interface and invokers, used for toString()
+     * @param invokers Invokers for each of the methods returned by type.getMethods()
+     * @return The new instance, or null if no class can be generated for this interface
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T newInstance(Class<T> type, T delegate, Map<Method, PropertyValueGetter<?>> invokers) {
+        GeneratedClass generated = CLASSES.get(type).orElse(null);
+        if (generated == null) {
+            return null;
+        }
+
+        PropertyValueGetter<?>[] getters = new PropertyValueGetter<?>[generated.methods.size()];
+        for (int i = 0; i < getters.length; i++) {
+            getters[i] = invokers.get(generated.methods.get(i));
+            if (getters[i] == null) {
+                return null;
+            }
+        }
+
+        try {
+            return (T) generated.constructor.newInstance(delegate, getters);
+        } catch (ReflectiveOperationException e) {
+            LOG.debug("Unable to instantiate the generated proxy class for {}", type.getName(), e);
+            return null;
+        }
+    }
+
+    private static GeneratedClass generate(Class<?> type) throws IOException, ReflectiveOperationException {
+        if (!type.isInterface() || !isPublic(type)) {
+            throw new UnsupportedOperationException("Only public interfaces are supported");
+        }
+
+        List<Method> methods = proxiedMethods(type);
+        String className = GENERATED_PACKAGE + type.getSimpleName() + "$ArchaiusProxy$" + COUNTER.incrementAndGet();
+
+        ClassFile classFile = new ClassFile(className, internalName(type));
+        classFile.addField("delegate", "Ljava/lang/Object;");
+        for (int i = 0; i < methods.size(); i++) {
+            classFile.addField("getter" + i, GETTER_DESCRIPTOR);
+        }
+        classFile.addMethod("<init>", CONSTRUCTOR_DESCRIPTOR, constructor(classFile, methods.size()));
+        classFile.addMethod("toString", "()Ljava/lang/String;", toStringMethod(classFile));
+        for (int i = 0; i < methods.size(); i++) {
+            Method method = methods.get(i);
+            classFile.addMethod(method.getName(), descriptor(method), proxiedMethod(classFile, method, i));
+        }
+
+        ClassLoader parent = type.getClassLoader() != null ? type.getClassLoader() : ProxyClassGenerator.class.getClassLoader();
+        Class<?> generatedClass = new GeneratedClassLoader(parent).define(className.replace('/', '.'), classFile.toByteArray());
+        Constructor<?> constructor = generatedClass.getConstructor(Object.class, PropertyValueGetter[].class);
+        return new GeneratedClass(methods, constructor);
+    }
+
+    /**
+     * All methods that need an implementation, in a stable order.  Methods matching equals, hashCode and toString are
+     * excluded since they are not dispatched to the invokers by the JDK proxy either.
+     */
+    private static List<Method> proxiedMethods(Class<?> type) {
+        List<Method> methods = new ArrayList<>();
+        Set<String> signatures = new HashSet<>();
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || isObjectMethod(method)) {
+                continue;
+            }
+            if (!signatures.add(method.getName() + descriptor(method))) {
+                throw new UnsupportedOperationException("Multiple declarations of " + method.getName());
+            }
+            if (!isPublic(method.getReturnType())) {
+                throw new UnsupportedOperationException("Return type of " + method.getName() + " is not public");
+            }
+            methods.add(method);
+        }
+        return methods;
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        switch (method.getName()) {
+            case "equals":
+                return method.getParameterCount() == 1 && method.getParameterTypes()[0] == Object.class;
+            case "hashCode":
+            case "toString":
+                return method.getParameterCount() == 0;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isPublic(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || Modifier.isPublic(type.getModifiers());
+    }
+
+    private static byte[] constructor(ClassFile classFile, int getterCount) throws IOException {
+        Code code = new Code(3, 3);
+        code.op(0x2a);                                                  // aload_0
+        code.op(0xb7).u2(classFile.methodRef(OBJECT, "<init>", "()V"));  // invokespecial Object.<init>
+        code.op(0x2a).op(0x2b);                                         // aload_0, aload_1
+        code.op(0xb5).u2(classFile.fieldRef("delegate", "Ljava/lang/Object;"));
+        for (int i = 0; i < getterCount; i++) {
+            code.op(0x2a).op(0x2c);                                     // aload_0, aload_2
+            code.pushInt(i);
+            code.op(0x32);                                              // aaload
+            code.op(0xb5).u2(classFile.fieldRef("getter" + i, GETTER_DESCRIPTOR));
+        }
+        code.op(0xb1);                                                  // return
+        return code.toByteArray();
+    }
+
+    private static byte[] toStringMethod(ClassFile classFile) throws IOException {
+        Code code = new Code(1, 1);
+        code.op(0x2a);
+        code.op(0xb4).u2(classFile.fieldRef("delegate", "Ljava/lang/Object;"));
+        code.op(0xb6).u2(classFile.methodRef(OBJECT, "toString", "()Ljava/lang/String;"));
+        code.op(0xb0);                                                  // areturn
+        return code.toByteArray();
+    }
+
+    private static byte[] proxiedMethod(ClassFile classFile, Method method, int index) throws IOException {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int locals = 1;
+        for (Class<?> parameterType : parameterTypes) {
+            locals += parameterType == long.class || parameterType == double.class ? 2 : 1;
+        }
+        if (locals > 255) {
+            throw new UnsupportedOperationException("Too many arguments for " + method.getName());
+        }
+
+        Code code = new Code(6, locals);
+        code.op(0x2a);
+        code.op(0xb4).u2(classFile.fieldRef("getter" + index, GETTER_DESCRIPTOR));
+        if (parameterTypes.length == 0) {
+            code.op(0x01);                                              // aconst_null
+        } else {
+            code.pushInt(parameterTypes.length);
+            code.op(0xbd).u2(classFile.classRef(OBJECT));              // anewarray Object
+            int slot = 1;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Class<?> parameterType = parameterTypes[i];
+                code.op(0x59);                                          // dup
+                code.pushInt(i);
+                code.op(loadOpcode(parameterType)).u1(slot);
+                if (parameterType.isPrimitive()) {
+                    String boxed = internalName(boxedType(parameterType));
+                    code.op(0xb8).u2(classFile.methodRef(boxed, "valueOf", "(" + descriptor(parameterType) + ")L" + boxed + ";"));
+                }
+                code.op(0x53);                                          // aastore
+                slot += parameterType == long.class || parameterType == double.class ? 2 : 1;
+            }
+        }
+        code.op(0xb9).u2(classFile.interfaceMethodRef(GETTER, "invoke", "([Ljava/lang/Object;)Ljava/lang/Object;")).u1(2).u1(0);
+
+        Class<?> returnType = method.getReturnType();
+        if (returnType == void.class) {
+            code.op(0x57).op(0xb1);                                     // pop, return
+        } else if (returnType.isPrimitive()) {
+            String boxed = internalName(boxedType(returnType));
+            code.op(0xc0).u2(classFile.classRef(boxed));               // checkcast
+            code.op(0xb6).u2(classFile.methodRef(boxed, returnType.getName() + "Value", "()" + descriptor(returnType)));
+            code.op(returnOpcode(returnType));
+        } else {
+            if (returnType != Object.class) {
+                code.op(0xc0).u2(classFile.classRef(returnType.isArray() ? descriptor(returnType) : internalName(returnType)));
+            }
+            code.op(0xb0);
+        }
+        return code.toByteArray();
+    }
+
+    private static int loadOpcode(Class<?> type) {
+        if (type == long.class) {
+            return 0x16;
+        } else if (type == float.class) {
+            return 0x17;
+        } else if (type == double.class) {
+            return 0x18;
+        } else if (type.isPrimitive()) {
+            return 0x15;
+        }
+        return 0x19;
+    }
+
+    private static int returnOpcode(Class<?> type) {
+        if (type == long.class) {
+            return 0xad;
+        } else if (type == float.class) {
+            return 0xae;
+        } else if (type == double.class) {
+            return 0xaf;
+        }
+        return 0xac;
+    }
+
+    private static Class<?> boxedType(Class<?> type) {
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+        throw new IllegalArgumentException("Not a primitive type " + type);
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Method method) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            sb.append(descriptor(parameterType));
+        }
+        return sb.append(')').append(descriptor(method.getReturnType())).toString();
+    }
+
+    private static String descriptor(Class<?> type) {
+        if (type.isArray()) {
+            return internalName(type);
+        } else if (!type.isPrimitive()) {
+            return "L" + internalName(type) + ";";
+        } else if (type == void.class) {
+            return "V";
+        } else if (type == long.class) {
+            return "J";
+        } else if (type == boolean.class) {
+            return "Z";
+        }
+        return String.valueOf(Character.toUpperCase(type.getName().charAt(0)));
+    }
+
+    /** The generated class along with the interface methods in the order of its getter fields */
+    private static final class GeneratedClass {
+        final List<Method> methods;
+        final Constructor<?> constructor;
+
+        GeneratedClass(List<Method> methods, Constructor<?> constructor) {
+            this.methods = methods;
+            this.constructor = constructor;
+        }
+    }
+
+    /**
+     * Loader for a generated class.  Delegates to the loader of the interface, but always resolves PropertyValueGetter
+     * to the one used by this library in case the interface's loader can't see it.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(PropertyValueGetter.class.getName())) {
+                return PropertyValueGetter.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+
+    /** Minimal writer for a version 52 (Java 8) class file with final fields and straight line methods */
+    private static final class ClassFile {
+        private final ByteArrayOutputStream constants = new ByteArrayOutputStream();
+        private final DataOutputStream constantsOut = new DataOutputStream(constants);
+        private final Map<String, Integer> constantIndexes = new HashMap<>();
+        private int constantCount = 1;
+
+        private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+        private final DataOutputStream fieldsOut = new DataOutputStream(fields);
+        private int fieldCount = 0;
+        private final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+        private final DataOutputStream methodsOut = new DataOutputStream(methods);
+        private int methodCount = 0;
+
+        private final String className;
+        private final int thisClass;
+        private final int superClass;
+        private final int interfaceClass;
+
+        ClassFile(String className, String interfaceName) throws IOException {
+            this.className = className;
+            this.thisClass = classRef(className);
+            this.superClass = classRef(OBJECT);
+            this.interfaceClass = classRef(interfaceName);
+        }
+
+        void addField(String name, String descriptor) throws IOException {
+            fieldsOut.writeShort(0x0012);                              // private final
+            fieldsOut.writeShort(utf8(name));
+            fieldsOut.writeShort(utf8(descriptor));
+            fieldsOut.writeShort(0);
+            fieldCount++;
+        }
+
+        void addMethod(String name, String descriptor, byte[] code) throws IOException {
+            methodsOut.writeShort(0x0001);                              // public
+            methodsOut.writeShort(utf8(name));
+            methodsOut.writeShort(utf8(descriptor));
+            methodsOut.writeShort(1);
+            methodsOut.writeShort(utf8("Code"));
+            methodsOut.writeInt(code.length);
+            methodsOut.write(code);
+            methodCount++;
+        }
+
+        int utf8(String value) throws IOException {
+            Integer index = constantIndexes.get("U" + value);
+            if (index == null) {
+                constantsOut.writeByte(1);
+                constantsOut.writeUTF(value);
+                index = register("U" + value);
+            }
+            return index;
+        }
+
+        int classRef(String internalName) throws IOException {
+            Integer index = constantIndexes.get("C" + internalName);
+            if (index == null) {
+                int name = utf8(internalName);
+                constantsOut.writeByte(7);
+                constantsOut.writeShort(name);
+                index = register("C" + internalName);
+            }
+            return index;
+        }
+
+        int fieldRef(String name, String descriptor) throws IOException {
+            return memberRef(9, className, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        int interfaceMethodRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(11, owner, name, descriptor);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) throws IOException {
+            String key = tag + owner + "." + name + descriptor;
+            Integer index = constantIndexes.get(key);
+            if (index == null) {
+                int ownerIndex = classRef(owner);
+                int nameAndType = nameAndType(name, descriptor);
+                constantsOut.writeByte(tag);
+                constantsOut.writeShort(ownerIndex);
+                constantsOut.writeShort(nameAndType);
+                index = register(key);
+            }
+            return index;
+        }
+
+        private int nameAndType(String name, String descriptor) throws IOException {
+            String key = "N" + name + descriptor;
+            Integer index = constantIndexes.get(key);
+            if (index == null) {
+                int nameIndex = utf8(name);
+                int descriptorIndex = utf8(descriptor);
+                constantsOut.writeByte(12);
+                constantsOut.writeShort(nameIndex);
+                constantsOut.writeShort(descriptorIndex);
+                index = register(key);
+            }
+            return index;
+        }
+
+        private int register(String key) {
+            int index = constantCount++;
+            constantIndexes.put(key, index);
+            return index;
+        }
+
+        byte[] toByteArray() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+            out.writeShort(constantCount);
+            constants.writeTo(out);
+            out.writeShort(0x0031);                                     // public final super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(interfaceClass);
+            out.writeShort(fieldCount);
+            fields.writeTo(out);
+            out.writeShort(methodCount);
+            methods.writeTo(out);
+            out.writeShort(0);
+            out.flush();
+            return bytes.toByteArray();
+        }
+    }
+
+    /** Body of a Code attribute without exception handlers, branches or attributes of its own */
+    private static final class Code {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final int maxStack;
+        private final int maxLocals;
+
+        Code(int maxStack, int maxLocals) {
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        Code op(int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Code u1(int value) {
+            bytes.write(value);
+            return this;
+        }
+
+        Code u2(int value) {
+            bytes.write(value >>> 8);
+            bytes.write(value);
+            return this;
+        }
+
+        void pushInt(int value) {
+            if (value <= 5) {
+                op(0x03 + value);                                       // iconst_<n>
+            } else if (value <= Byte.MAX_VALUE) {
+                op(0x10).u1(value);                                     // bipush
+            } else {
+                op(0x11).u2(value);                                     // sipush
+            }
+        }
+
+        byte[] toByteArray() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeShort(maxStack);
+            data.writeShort(maxLocals);
+            data.writeInt(bytes.size());
+            bytes.writeTo(data);
+            data.writeShort(0);
+            data.writeShort(0);
+            data.flush();
+            return out.toByteArray();
+        }
+    }
+}
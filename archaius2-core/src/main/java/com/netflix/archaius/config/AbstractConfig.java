@@ -18,11 +18,13 @@ package com.netflix.archaius.config;
 import com.netflix.archaius.DefaultDecoder;
 import com.netflix.archaius.api.Config;
 import com.netflix.archaius.api.ConfigListener;
+import com.netflix.archaius.api.ConfigMetrics;
 import com.netflix.archaius.api.Decoder;
+import com.netflix.archaius.api.KeyedConfigListener;
 import com.netflix.archaius.api.StrInterpolator;
 import com.netflix.archaius.api.StrInterpolator.Lookup;
 import com.netflix.archaius.exceptions.ParseException;
-import com.netflix.archaius.interpolate.CommonsStrInterpolator;
+import com.netflix.archaius.interpolate.CompiledStrInterpolator;
 import com.netflix.archaius.interpolate.ConfigStrLookup;
 
 import java.lang.reflect.Type;
@@ -33,6 +35,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
@@ -43,8 +46,10 @@ public abstract class AbstractConfig implements Config {
     private final Lookup lookup;
     private Decoder decoder;
     private StrInterpolator interpolator;
+    private volatile InterpolatorContext interpolatorContext;
     private String listDelimiter = ",";
     private final String name;
+    private volatile ConfigMetrics metrics = ConfigMetrics.noop();
     
     private static final AtomicInteger idCounter = new AtomicInteger();
     protected static String generateUniqueName(String prefix) {
@@ -53,7 +58,7 @@ public abstract class AbstractConfig implements Config {
     
     public AbstractConfig(String name) {
         this.decoder = DefaultDecoder.INSTANCE;
-        this.interpolator = CommonsStrInterpolator.INSTANCE;
+        this.interpolator = CompiledStrInterpolator.INSTANCE;
         this.lookup = ConfigStrLookup.from(this);
         this.name = name == null ? generateUniqueName("unnamed-") : name;
     }
@@ -69,6 +74,30 @@ public abstract class AbstractConfig implements Config {
     protected Lookup getLookup() { 
         return lookup; 
     }
+
+    /**
+     * @return Context of the current interpolator over {@link #getLookup()}, created once per interpolator instead of
+     *  on every resolve
+     */
+    private StrInterpolator.Context getInterpolatorContext() {
+        StrInterpolator interpolator = this.interpolator;
+        InterpolatorContext current = interpolatorContext;
+        if (current == null || current.interpolator != interpolator) {
+            current = new InterpolatorContext(interpolator, interpolator.create(getLookup()));
+            interpolatorContext = current;
+        }
+        return current.context;
+    }
+
+    private static final class InterpolatorContext {
+        final StrInterpolator interpolator;
+        final StrInterpolator.Context context;
+
+        InterpolatorContext(StrInterpolator interpolator, StrInterpolator.Context context) {
+            this.interpolator = interpolator;
+            this.context = context;
+        }
+    }
     
     public String getListDelimiter() {
         return listDelimiter;
@@ -98,6 +127,19 @@ public abstract class AbstractConfig implements Config {
         this.interpolator = interpolator;
     }
 
+    /**
+     * Set the metrics to which this config reports the cost of its internal operations, such as rebuilding its
+     * state or polling its source.  Only operations after this call are reported, and the metrics aren't
+     * propagated to child configs.
+     */
+    public void setMetrics(ConfigMetrics metrics) {
+        this.metrics = metrics == null ? ConfigMetrics.noop() : metrics;
+    }
+
+    protected ConfigMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public void addListener(ConfigListener listener) {
         listeners.add(listener);
@@ -114,6 +156,20 @@ public abstract class AbstractConfig implements Config {
         }
     }
 
+    /**
+     * Notify listeners of an update that only touched the provided keys.  Listeners that don't implement
+     * {@link KeyedConfigListener} receive a regular {@link ConfigListener#onConfigUpdated(Config)}.
+     */
+    protected void notifyConfigUpdated(Config child, Set<String> changedKeys) {
+        for (ConfigListener listener : listeners) {
+            if (listener instanceof KeyedConfigListener) {
+                ((KeyedConfigListener) listener).onConfigUpdated(child, changedKeys);
+            } else {
+                listener.onConfigUpdated(child);
+            }
+        }
+    }
+
     protected void notifyError(Throwable t, Config child) {
         for (ConfigListener listener : listeners) {
             listener.onError(t, child);
@@ -136,7 +192,7 @@ public abstract class AbstractConfig implements Config {
     public String getString(String key, String defaultValue) {
         Object value = getRawProperty(key);
         if (value == null) {
-            return notFound(key, defaultValue != null ? interpolator.create(getLookup()).resolve(defaultValue) : null);
+            return notFound(key, defaultValue != null ? getInterpolatorContext().resolve(defaultValue) : null);
         }
 
         if (value instanceof String) {
@@ -326,7 +382,7 @@ public abstract class AbstractConfig implements Config {
 
     @Override
     public String resolve(String value) {
-        return interpolator.create(getLookup()).resolve(value);
+        return getInterpolatorContext().resolve(value);
     }
 
     @Override
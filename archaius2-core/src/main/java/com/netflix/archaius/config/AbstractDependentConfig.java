@@ -1,9 +1,34 @@
 package com.netflix.archaius.config;
 
+import com.netflix.archaius.api.Config;
+import com.netflix.archaius.api.ConfigMetrics;
+import com.netflix.archaius.api.Decoder;
 import com.netflix.archaius.api.PropertyDetails;
+import com.netflix.archaius.api.StrInterpolator;
 
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * Extendable base class for the dependent config paradigm. Dependent configs are assumed to be configs which inherit
@@ -15,6 +40,20 @@ import java.util.function.BiConsumer;
  */
 public abstract class AbstractDependentConfig extends AbstractConfig {
 
+    /** Immutable types whose decoded values can safely be shared between callers */
+    private static final Set<Class<?>> CACHEABLE_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class,
+            Character.class, boolean.class, int.class, long.class, short.class, byte.class, double.class, float.class,
+            char.class, BigInteger.class, BigDecimal.class, Duration.class, Period.class, Instant.class,
+            LocalDateTime.class, LocalDate.class, LocalTime.class, OffsetDateTime.class, OffsetTime.class,
+            ZonedDateTime.class, Currency.class, URI.class, Locale.class)));
+
+    private volatile boolean typedValueCacheEnabled = false;
+    private volatile boolean lazyPrefixedViews = false;
+    // Metrics are resolved once in setMetrics() instead of on every rebuild
+    private volatile ConfigMetrics.Timer rebuildTimer = ConfigMetrics.noop().timer(null, null);
+    private volatile ConfigMetrics.Timer partialRebuildTimer = ConfigMetrics.noop().timer(null, null);
+
     public AbstractDependentConfig(String name) {
         super(name);
     }
@@ -25,18 +64,120 @@ public abstract class AbstractDependentConfig extends AbstractConfig {
 
     abstract CachedState getState();
 
+    @Override
+    public void setMetrics(ConfigMetrics metrics) {
+        super.setMetrics(metrics);
+        ConfigMetrics resolved = getMetrics();
+        this.rebuildTimer = resolved.timer(ConfigMetrics.CONFIG_REBUILD, getName());
+        this.partialRebuildTimer = resolved.timer(ConfigMetrics.CONFIG_PARTIAL_REBUILD, getName());
+    }
+
+    /**
+     * Rebuild the state of this config and record the time it took
+     * @param partial True if only the changed keys are re-resolved
+     */
+    <S> S rebuildState(boolean partial, Supplier<S> rebuild) {
+        long start = System.nanoTime();
+        S state = rebuild.get();
+        (partial ? partialRebuildTimer : rebuildTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return state;
+    }
+
+    /**
+     * Enable or disable caching of decoded values.  When enabled, typed reads such as getInteger() or get(Type, String)
+     * of an immutable type decode a value once per state instead of on every call.  Values using interpolation are
+     * always decoded again since they depend on other properties.  Disabled by default, since the decoded values are
+     * kept alongside the raw values of the state.
+     */
+    public void setTypedValueCacheEnabled(boolean enabled) {
+        this.typedValueCacheEnabled = enabled;
+        clearTypedValues();
+    }
+
+    /**
+     * Enable or disable lazy prefixed views.  When enabled, {@link #getPrefixedView(String)} returns a
+     * {@link LazyPrefixedViewConfig} that reads through to the state of this config instead of a
+     * {@link PrefixedViewConfig} holding a copy of the matching properties.  Disabled by default.
+     */
+    public void setLazyPrefixedViews(boolean enabled) {
+        this.lazyPrefixedViews = enabled;
+    }
+
+    @Override
+    public Config getPrefixedView(String prefix) {
+        if (lazyPrefixedViews && prefix != null && !prefix.isEmpty() && !prefix.equals(".")) {
+            return new LazyPrefixedViewConfig(prefix, this);
+        }
+        return super.getPrefixedView(prefix);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <T> T getValueWithDefault(Type type, String key, T defaultValue) {
+        CachedState.Entry entry = getState().getEntry(key);
+        if (entry == null
+                || !typedValueCacheEnabled
+                || !(entry.value instanceof String)
+                || !isCacheable(type)
+                || ((String) entry.value).contains("${")) {
+            return super.getValueWithDefault(type, key, defaultValue);
+        }
+
+        Object value = entry.getTypedValue(type);
+        if (value != null) {
+            if (entry.instrumentedConfig != null) {
+                entry.instrumentedConfig.recordUsage(getPropertyDetails(key, entry));
+            }
+            return (T) value;
+        }
+
+        T decoded = super.getValueWithDefault(type, key, defaultValue);
+        if (decoded != null && decoded != defaultValue) {
+            entry.putTypedValue(type, decoded);
+        }
+        return decoded;
+    }
+
+    private static boolean isCacheable(Type type) {
+        return type instanceof Class && (CACHEABLE_TYPES.contains(type) || ((Class<?>) type).isEnum());
+    }
+
+    @Override
+    public void setDecoder(Decoder decoder) {
+        super.setDecoder(decoder);
+        clearTypedValues();
+    }
+
+    @Override
+    public void setStrInterpolator(StrInterpolator interpolator) {
+        super.setStrInterpolator(interpolator);
+        clearTypedValues();
+    }
+
+    private void clearTypedValues() {
+        // May be called by a subclass constructor before the state is set up
+        CachedState state = getState();
+        if (state != null) {
+            state.clearTypedValues();
+        }
+    }
+
     @Override
     public Object getRawProperty(String key) {
-        Object value = getState().getData().get(key);
-        if (getState().getInstrumentedKeys().containsKey(key)) {
-            getState().getInstrumentedKeys().get(key).recordUsage(createPropertyDetails(key, value));
+        CachedState.Entry entry = getState().getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.instrumentedConfig != null) {
+            entry.instrumentedConfig.recordUsage(getPropertyDetails(key, entry));
         }
-        return value;
+        return entry.value;
     }
 
     @Override
     public Object getRawPropertyUninstrumented(String key) {
-        return getState().getData().get(key);
+        CachedState.Entry entry = getState().getEntry(key);
+        return entry != null ? entry.value : null;
     }
 
     /** Return a set of all unique keys tracked by any child of this composite. */
@@ -50,13 +191,20 @@ public abstract class AbstractDependentConfig extends AbstractConfig {
         return getState().getData().keySet();
     }
 
+    /** Return the keys starting with the prefix, in sorted order, without scanning all keys. */
+    @Override
+    @Deprecated
+    public Iterator<String> getKeys(String prefix) {
+        return getState().getKeysWithPrefix(prefix).iterator();
+    }
+
     @Override
     public void forEachProperty(BiConsumer<String, Object> consumer) {
-        getState().getData().forEach((k, v) -> {
-            if (getState().getInstrumentedKeys().containsKey(k)) {
-                getState().getInstrumentedKeys().get(k).recordUsage(createPropertyDetails(k, v));
+        getState().forEachEntry((k, entry) -> {
+            if (entry.instrumentedConfig != null) {
+                entry.instrumentedConfig.recordUsage(getPropertyDetails(k, entry));
             }
-            consumer.accept(k, v);
+            consumer.accept(k, entry.value);
         });
     }
 
@@ -67,7 +215,7 @@ public abstract class AbstractDependentConfig extends AbstractConfig {
 
     @Override
     public boolean containsKey(String key) {
-        return getState().getData().containsKey(key);
+        return getState().getEntry(key) != null;
     }
 
     @Override
@@ -77,8 +225,9 @@ public abstract class AbstractDependentConfig extends AbstractConfig {
 
     @Override
     public void recordUsage(PropertyDetails propertyDetails) {
-        if (getState().getInstrumentedKeys().containsKey(propertyDetails.getKey())) {
-            getState().getInstrumentedKeys().get(propertyDetails.getKey()).recordUsage(createPropertyDetails(propertyDetails.getKey(), propertyDetails.getValue()));
+        CachedState.Entry entry = getState().getEntry(propertyDetails.getKey());
+        if (entry != null && entry.instrumentedConfig != null) {
+            entry.instrumentedConfig.recordUsage(createPropertyDetails(propertyDetails.getKey(), propertyDetails.getValue()));
         }
     }
 
@@ -86,10 +235,30 @@ public abstract class AbstractDependentConfig extends AbstractConfig {
     public boolean instrumentationEnabled() {
         // In the case of dependent configs, instrumentation needs to be propagated.
         // So, if any of the parent configs are instrumented, we mark this config as instrumented as well.
-        return !getState().getInstrumentedKeys().isEmpty();
+        return getState().isInstrumented();
     }
     
+    /**
+     * Record usage of the key on the instrumented config providing it, with the details cached on its entry so that
+     * views forwarding their usage don't allocate new details on every read
+     */
+    void recordUsage(String key) {
+        CachedState.Entry entry = getState().getEntry(key);
+        if (entry != null && entry.instrumentedConfig != null) {
+            entry.instrumentedConfig.recordUsage(getPropertyDetails(key, entry));
+        }
+    }
+
     protected PropertyDetails createPropertyDetails(String key, Object value) {
         return new PropertyDetails(key, null, value);
     }
+
+    private PropertyDetails getPropertyDetails(String key, CachedState.Entry entry) {
+        PropertyDetails propertyDetails = entry.propertyDetails;
+        if (propertyDetails == null) {
+            propertyDetails = createPropertyDetails(key, entry.value);
+            entry.propertyDetails = propertyDetails;
+        }
+        return propertyDetails;
+    }
 }
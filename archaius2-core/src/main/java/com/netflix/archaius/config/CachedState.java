@@ -1,25 +1,527 @@
 package com.netflix.archaius.config;
 
 import com.netflix.archaius.api.Config;
+import com.netflix.archaius.api.PropertyDetails;
+import com.netflix.archaius.util.PersistentHashMap;
 
+import java.lang.reflect.Type;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 /** Represents an immutable, current view of a dependent config over its parent configs. */
 class CachedState {
+    /**
+     * One entry per key holding the value together with the config to record usage on, so that a lookup is a single
+     * probe on a single map.  States created by {@link #withUpdatedKeys} use {@link UpdatedEntries} instead, which
+     * share the entries of the state they were derived from.
+     */
+    private final Map<String, Entry> entries;
     private final Map<String, Object> data;
-    private final Map<String, Config> instrumentedKeys;
 
-    CachedState(Map<String, Object> data, Map<String, Config> instrumentedKeys) {
-        this.data = Collections.unmodifiableMap(data);
-        this.instrumentedKeys = Collections.unmodifiableMap(instrumentedKeys);
+    /** Number of entries with an instrumented config, so that updates don't have to scan all entries */
+    private final int instrumentedCount;
+
+    /**
+     * Index of the keys for prefix lookups.  Built on the first prefix lookup and carried over to states created by
+     * {@link #withUpdatedKeys}.
+     */
+    private volatile SortedKeys sortedKeys;
+
+    private CachedState(Map<String, Entry> entries, int instrumentedCount, SortedKeys sortedKeys) {
+        this.entries = entries;
+        this.data = new DataView();
+        this.instrumentedCount = instrumentedCount;
+        this.sortedKeys = sortedKeys;
+    }
+
+    /**
+     * Builder of a state from scratch, which creates the entries as the properties of the parent configs are visited
+     * instead of collecting them in intermediate maps first.  Iteration order of the state is the order in which
+     * keys were added.
+     */
+    static final class Builder {
+        private final Map<String, Entry> entries;
+        private int instrumentedCount;
+
+        Builder() {
+            this(16);
+        }
+
+        /** @param expectedSize Expected number of keys, to avoid resizing while adding them */
+        Builder(int expectedSize) {
+            this.entries = new LinkedHashMap<>(expectedSize * 4 / 3 + 1);
+        }
+
+        /**
+         * Add the key unless it was already added, i.e. the first config providing a key wins
+         * @param instrumentedConfig Config to record usage of the key on, or null if it is not instrumented
+         */
+        void putIfAbsent(String key, Object value, Config instrumentedConfig) {
+            if (!entries.containsKey(key)) {
+                put(key, value, instrumentedConfig);
+            }
+        }
+
+        /**
+         * Add the key, replacing any previous value
+         * @param instrumentedConfig Config to record usage of the key on, or null if it is not instrumented
+         */
+        void put(String key, Object value, Config instrumentedConfig) {
+            Entry previous = entries.put(key, new Entry(value, instrumentedConfig));
+            if (previous != null && previous.instrumentedConfig != null) {
+                instrumentedCount--;
+            }
+            if (instrumentedConfig != null) {
+                instrumentedCount++;
+            }
+        }
+
+        CachedState build() {
+            return new CachedState(entries, instrumentedCount, null);
+        }
     }
 
+    /** @return The entry for the key, or null if no parent config contains it */
+    Entry getEntry(String key) {
+        return entries.get(key);
+    }
+
+    /** @return An unmodifiable view of the property values */
     Map<String, Object> getData() {
         return data;
     }
 
-    Map<String, Config> getInstrumentedKeys() {
-        return instrumentedKeys;
+    void forEachEntry(BiConsumer<String, Entry> consumer) {
+        entries.forEach(consumer);
+    }
+
+    /**
+     * @return The keys starting with the prefix, in sorted order.  Costs a binary search plus the number of matching
+     *  keys, except for the first lookup on a state that wasn't derived from an indexed state.
+     */
+    List<String> getKeysWithPrefix(String prefix) {
+        return getSortedKeys().withPrefix(prefix, entries);
+    }
+
+    private SortedKeys getSortedKeys() {
+        SortedKeys keys = sortedKeys;
+        if (keys == null) {
+            String[] sorted = entries.keySet().toArray(new String[0]);
+            Arrays.sort(sorted);
+            keys = new SortedKeys(sorted, NO_KEYS, 0);
+            sortedKeys = keys;
+        }
+        return keys;
+    }
+
+    /** @return True if usage of at least one key is recorded on an instrumented parent config */
+    boolean isInstrumented() {
+        return instrumentedCount > 0;
+    }
+
+    /** Discard all decoded values, for when the decoder or interpolator of the owning config changes */
+    void clearTypedValues() {
+        for (Entry entry : entries.values()) {
+            entry.typedValues = null;
+        }
+    }
+
+    /**
+     * Create a new state in which only the changed keys are resolved again against the children.  All other entries
+     * are carried over as is.
+     *
+     * @param children The parent configs in override order, i.e. the first config containing a key wins
+     * @param changedKeys Keys that were added, changed or removed in one of the children
+     */
+    CachedState withUpdatedKeys(Iterable<Config> children, Set<String> changedKeys) {
+        Map<String, Entry> base = entries;
+        PersistentHashMap<String, Entry> changes = PersistentHashMap.empty();
+        if (entries instanceof UpdatedEntries) {
+            base = ((UpdatedEntries) entries).base;
+            changes = ((UpdatedEntries) entries).changes;
+        }
+        int size = entries.size();
+        int newInstrumentedCount = instrumentedCount;
+        List<String> added = null;
+        int removed = 0;
+        for (String key : changedKeys) {
+            Entry previous = entries.get(key);
+            if (previous != null && previous.instrumentedConfig != null) {
+                newInstrumentedCount--;
+            }
+            Entry entry = null;
+            for (Config child : children) {
+                Object value = child.getRawPropertyUninstrumented(key);
+                if (value != null) {
+                    Config instrumentedConfig = child.instrumentationEnabled() ? child : null;
+                    entry = new Entry(value, instrumentedConfig);
+                    if (instrumentedConfig != null) {
+                        newInstrumentedCount++;
+                    }
+                    break;
+                }
+            }
+
+            if (entry != null) {
+                changes = changes.plus(key, entry);
+                if (previous == null) {
+                    size++;
+                    if (added == null) {
+                        added = new ArrayList<>();
+                    }
+                    added.add(key);
+                }
+            } else if (previous != null) {
+                changes = base.containsKey(key) ? changes.plus(key, REMOVED) : changes.minus(key);
+                size--;
+                removed++;
+            }
+        }
+
+        Map<String, Entry> newEntries = new UpdatedEntries(base, changes, size);
+        if (changes.size() > 64 + base.size() / 32) {
+            newEntries = new HashMap<>(newEntries);
+        }
+
+        SortedKeys keys = sortedKeys;
+        if (keys != null && (added != null || removed > 0)) {
+            keys = keys.update(added != null ? added : Collections.emptyList(), removed);
+        }
+        return new CachedState(newEntries, newInstrumentedCount, keys);
+    }
+
+    /**
+     * Determine whether a key level update reported by source can be applied with {@link #withUpdatedKeys}.  This is
+     * only the case for direct children.  A {@link PrefixedViewConfig} or {@link LazyPrefixedViewConfig} registers its
+     * listeners on its own parent, so when one is present the reported keys may not be in the key space of the
+     * children and a full rebuild is needed.
+     */
+    static boolean supportsKeyedUpdate(Iterable<Config> children, Config source) {
+        boolean isChild = false;
+        for (Config child : children) {
+            if (child instanceof PrefixedViewConfig || child instanceof LazyPrefixedViewConfig) {
+                return false;
+            }
+            if (child == source) {
+                isChild = true;
+            }
+        }
+        return isChild;
+    }
+
+    /** Marks a key of {@link UpdatedEntries#base} as removed */
+    private static final Entry REMOVED = new Entry(null, null);
+
+    /**
+     * Entries of a state created by {@link #withUpdatedKeys}, consisting of the entries of a previous state shared as
+     * is and the keys changed since in a {@link PersistentHashMap}, so that an update costs the number of changed
+     * keys instead of copying all entries.  Once the changes exceed a small fraction of the shared entries they are
+     * merged into a new hash map, which amortizes the copy over many updates and keeps a lookup at two probes at most.
+     */
+    private static final class UpdatedEntries extends AbstractMap<String, CachedState.Entry> {
+        final Map<String, CachedState.Entry> base;
+
+        /** Entries that were added or changed since base, and {@link #REMOVED} for keys of base that were removed */
+        final PersistentHashMap<String, CachedState.Entry> changes;
+
+        private final int size;
+
+        UpdatedEntries(
+                Map<String, CachedState.Entry> base, PersistentHashMap<String, CachedState.Entry> changes, int size) {
+            this.base = base;
+            this.changes = changes;
+            this.size = size;
+        }
+
+        @Override
+        public CachedState.Entry get(Object key) {
+            CachedState.Entry entry = changes.get(key);
+            if (entry != null) {
+                return entry != REMOVED ? entry : null;
+            }
+            return base.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super String, ? super CachedState.Entry> action) {
+            base.forEach((key, entry) -> {
+                if (!changes.containsKey(key)) {
+                    action.accept(key, entry);
+                }
+            });
+            changes.forEach((key, entry) -> {
+                if (entry != REMOVED) {
+                    action.accept(key, entry);
+                }
+            });
+        }
+
+        @Override
+        public Set<Map.Entry<String, CachedState.Entry>> entrySet() {
+            return new AbstractSet<Map.Entry<String, CachedState.Entry>>() {
+                @Override
+                public Iterator<Map.Entry<String, CachedState.Entry>> iterator() {
+                    Iterator<Map.Entry<String, CachedState.Entry>> baseIterator = base.entrySet().iterator();
+                    Iterator<Map.Entry<String, CachedState.Entry>> changesIterator = changes.entrySet().iterator();
+                    return new Iterator<Map.Entry<String, CachedState.Entry>>() {
+                        private Map.Entry<String, CachedState.Entry> next = advance();
+
+                        private Map.Entry<String, CachedState.Entry> advance() {
+                            while (baseIterator.hasNext()) {
+                                Map.Entry<String, CachedState.Entry> entry = baseIterator.next();
+                                if (!changes.containsKey(entry.getKey())) {
+                                    return entry;
+                                }
+                            }
+                            while (changesIterator.hasNext()) {
+                                Map.Entry<String, CachedState.Entry> entry = changesIterator.next();
+                                if (entry.getValue() != REMOVED) {
+                                    return entry;
+                                }
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null;
+                        }
+
+                        @Override
+                        public Map.Entry<String, CachedState.Entry> next() {
+                            if (next == null) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, CachedState.Entry> current = next;
+                            next = advance();
+                            return current;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+
+    private static final String[] NO_KEYS = new String[0];
+
+    /**
+     * Keys in sorted order, so that the keys with a given prefix form a contiguous range.  States created by
+     * {@link #withUpdatedKeys} share the sorted keys of the state they were derived from and only track the keys
+     * added since in a small sorted array, while removed keys are skipped on lookup by checking the entries.  Once the
+     * keys added or removed exceed about the square root of the number of keys the index is dropped and sorted again
+     * on the next lookup, so that an update never copies all keys and the sort is amortized over many updates.
+     */
+    private static final class SortedKeys {
+        /** Sorted keys, possibly including keys that were removed since */
+        final String[] base;
+
+        /** Sorted keys that were added since base was sorted, none of which are contained in base */
+        final String[] added;
+
+        /** Number of keys removed since base was sorted */
+        final int removed;
+
+        SortedKeys(String[] base, String[] added, int removed) {
+            this.base = base;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        List<String> withPrefix(String prefix, Map<String, Entry> entries) {
+            int from = indexOf(base, prefix);
+            int to = from;
+            while (to < base.length && base[to].startsWith(prefix)) {
+                to++;
+            }
+            if (added.length == 0 && removed == 0) {
+                return Collections.unmodifiableList(Arrays.asList(base).subList(from, to));
+            }
+
+            List<String> result = new ArrayList<>();
+            int i = from;
+            int j = indexOf(added, prefix);
+            while (true) {
+                String next;
+                boolean hasAdded = j < added.length && added[j].startsWith(prefix);
+                if (i < to && (!hasAdded || base[i].compareTo(added[j]) < 0)) {
+                    next = base[i++];
+                } else if (hasAdded) {
+                    next = added[j++];
+                } else {
+                    break;
+                }
+                if (entries.containsKey(next)) {
+                    result.add(next);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        /** @return Index for the updated keys, or null if it should be sorted again */
+        SortedKeys update(List<String> newKeys, int newlyRemoved) {
+            List<String> toAdd = new ArrayList<>(newKeys.size());
+            for (String key : newKeys) {
+                // A key that is removed and added again is still present in one of the arrays
+                if (Arrays.binarySearch(base, key) < 0 && Arrays.binarySearch(added, key) < 0) {
+                    toAdd.add(key);
+                }
+            }
+            int changes = added.length + toAdd.size() + removed + newlyRemoved;
+            if (changes > Math.max(64, (int) Math.sqrt(base.length))) {
+                return null;
+            }
+
+            String[] merged = added;
+            if (!toAdd.isEmpty()) {
+                merged = Arrays.copyOf(added, added.length + toAdd.size());
+                for (int i = 0; i < toAdd.size(); i++) {
+                    merged[added.length + i] = toAdd.get(i);
+                }
+                Arrays.sort(merged);
+            }
+            return new SortedKeys(base, merged, removed + newlyRemoved);
+        }
+
+        private static int indexOf(String[] keys, String prefix) {
+            int index = Arrays.binarySearch(keys, prefix);
+            return index < 0 ? -index - 1 : index;
+        }
+    }
+
+    /**
+     * Value of a key, the instrumented config owning it if any, and the values decoded from it by type.  Entries of
+     * unchanged keys are shared with the states created by {@link #withUpdatedKeys}, so decoded values survive
+     * updates of other keys.
+     */
+    static final class Entry {
+        final Object value;
+
+        /** Config to record usage of the key on, or null if it is not instrumented */
+        final Config instrumentedConfig;
+
+        private volatile TypedValue typedValues;
+
+        /** Details recorded on the instrumented config, created on first use so that later reads don't allocate */
+        volatile PropertyDetails propertyDetails;
+
+        Entry(Object value, Config instrumentedConfig) {
+            this.value = value;
+            this.instrumentedConfig = instrumentedConfig;
+        }
+
+        /** @return The value previously decoded for the type, or null */
+        Object getTypedValue(Type type) {
+            for (TypedValue typedValue = typedValues; typedValue != null; typedValue = typedValue.next) {
+                if (typedValue.type == type) {
+                    return typedValue.value;
+                }
+            }
+            return null;
+        }
+
+        synchronized void putTypedValue(Type type, Object value) {
+            if (getTypedValue(type) == null) {
+                typedValues = new TypedValue(type, value, typedValues);
+            }
+        }
+    }
+
+    private static final class TypedValue {
+        final Type type;
+        final Object value;
+        final TypedValue next;
+
+        TypedValue(Type type, Object value, TypedValue next) {
+            this.type = type;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /** Read only Map view of the entry values, for iteration and callers that need a plain Map */
+    private final class DataView extends AbstractMap<String, Object> {
+        @Override
+        public Object get(Object key) {
+            CachedState.Entry entry = entries.get(key);
+            return entry != null ? entry.value : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(entries.keySet());
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super String, ? super Object> action) {
+            entries.forEach((key, entry) -> action.accept(key, entry.value));
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    Iterator<Map.Entry<String, CachedState.Entry>> iterator = entries.entrySet().iterator();
+                    return new Iterator<Map.Entry<String, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            Map.Entry<String, CachedState.Entry> next = iterator.next();
+                            return new SimpleImmutableEntry<>(next.getKey(), next.getValue().value);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
     }
 }
@@ -17,11 +17,12 @@ package com.netflix.archaius.config;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 import com.netflix.archaius.util.Maps;
 import org.slf4j.Logger;
@@ -79,29 +80,17 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
         
         public State(Map<String, Config> children, int size) {
             this.children = children;
-            Map<String, Object> data = Maps.newHashMap(size);
-            Map<String, Config> instrumentedKeys = new HashMap<>();
+            CachedState.Builder builder = new CachedState.Builder(size);
             for (Config child : children.values()) {
-                boolean instrumented = child.instrumentationEnabled();
-                child.forEachPropertyUninstrumented(
-                        (k, v) -> updateData(data, instrumentedKeys, k, v, child, instrumented));
+                Config instrumentedConfig = child.instrumentationEnabled() ? child : null;
+                child.forEachPropertyUninstrumented((k, v) -> builder.putIfAbsent(k, v, instrumentedConfig));
             }
-            this.cachedState = new CachedState(data, instrumentedKeys);
+            this.cachedState = builder.build();
         }
 
-        private void updateData(
-                Map<String, Object> data,
-                Map<String, Config> instrumentedKeys,
-                String key,
-                Object value,
-                Config childConfig,
-                boolean instrumented) {
-            if (!data.containsKey(key)) {
-                if (instrumented) {
-                    instrumentedKeys.put(key, childConfig);
-                }
-                data.put(key, value);
-            }
+        private State(Map<String, Config> children, CachedState cachedState) {
+            this.children = children;
+            this.cachedState = cachedState;
         }
         
         State addConfig(String name, Config config) {
@@ -131,6 +120,14 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
             return new State(children, cachedState.getData().size());
         }
 
+        boolean supportsKeyedUpdate(Config source) {
+            return CachedState.supportsKeyedUpdate(children.values(), source);
+        }
+
+        State refresh(Set<String> changedKeys) {
+            return new State(children, cachedState.withUpdatedKeys(children.values(), changedKeys));
+        }
+
 
         Config getConfig(String name) {
             return children.get(name);
@@ -168,6 +165,15 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
             dcc.notifyConfigUpdated(dcc);
         }
 
+        @Override
+        public void onSourceConfigUpdated(DefaultCompositeConfig dcc, Config config, Set<String> changedKeys) {
+            if (dcc.refreshState(config, changedKeys)) {
+                dcc.notifyConfigUpdated(dcc, changedKeys);
+            } else {
+                dcc.notifyConfigUpdated(dcc);
+            }
+        }
+
         @Override
         public void onSourceError(Throwable error, DefaultCompositeConfig dcc, Config config) {
             dcc.notifyError(error, dcc);
@@ -176,7 +182,7 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
     
     private final ConfigListener listener;
     private final boolean reversed;
-    private volatile State state;
+    private final AtomicReference<State> state;
     public DefaultCompositeConfig() {
         this(false);
     }
@@ -185,18 +191,50 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
         this.reversed = reversed;
         this.listener = new CompositeConfigListener(this);
         
-        this.state = new State(Collections.emptyMap(), 0);
+        this.state = new AtomicReference<>(new State(Collections.emptyMap(), 0));
     }
 
     @Override
     CachedState getState() {
-        return state.cachedState;
+        return state.get().cachedState;
     }
 
+    /**
+     * Not synchronized, since the listener path runs while a child may hold its own lock and must not wait for this
+     * config's monitor, which {@link #accept(Visitor)} and the mutations hold while calling into children.  Instead the
+     * new state is swapped in with a compare-and-set and rebuilt from the latest state if another update won the race.
+     */
     private void refreshState() {
-        this.state = state.refresh();
+        updateState(State::refresh);
     }
 
+    /**
+     * Only re-resolve the changed keys if the delta can be trusted, otherwise fall back to a full rebuild.  The delta
+     * is checked against and applied to the state that is replaced, retrying like {@link #refreshState()}.
+     * @return true if the partial update was applied
+     */
+    private boolean refreshState(Config source, Set<String> changedKeys) {
+        while (true) {
+            State current = state.get();
+            boolean partial = current.supportsKeyedUpdate(source);
+            State updated = partial
+                    ? rebuildState(true, () -> current.refresh(changedKeys))
+                    : rebuildState(false, current::refresh);
+            if (state.compareAndSet(current, updated)) {
+                return partial;
+            }
+        }
+    }
+
+    private void updateState(UnaryOperator<State> update) {
+        while (true) {
+            State current = state.get();
+            State updated = rebuildState(false, () -> update.apply(current));
+            if (state.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
 
     @Override
     public synchronized boolean addConfig(String name, Config child) throws ConfigException {
@@ -215,12 +253,12 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
             throw new ConfigException("Child configuration must be named");
         }
         
-        if (state.containsConfig(name)) {
+        if (state.get().containsConfig(name)) {
             LOG.info("Configuration with name'{}' already exists", name);
             return false;
         }
 
-        state = state.addConfig(name, child);
+        updateState(current -> current.addConfig(name, child));
         postConfigAdded(child);
         return true;
     }
@@ -241,7 +279,7 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
 
     @Override
     public synchronized Collection<String> getConfigNames() {
-        return state.children.keySet();
+        return state.get().children.keySet();
     }
     
     protected void postConfigAdded(Config child) {
@@ -263,9 +301,9 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
     }
     
     public synchronized Config internalRemoveConfig(String name) {
-        Config child = state.getConfig(name);
+        Config child = state.get().getConfig(name);
         if (child != null) {
-            state = state.removeConfig(name);
+            updateState(current -> current.removeConfig(name));
             child.removeListener(listener);
             this.notifyConfigRemoved(child);
         }
@@ -274,19 +312,20 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
 
     @Override
     public Config getConfig(String name) {
-        return state.children.get(name);
+        return state.get().children.get(name);
     }
 
     @Override
     public synchronized <T> T accept(Visitor<T> visitor) {
         AtomicReference<T> result = new AtomicReference<>(null);
+        State current = state.get();
         if (visitor instanceof CompositeVisitor) {
             CompositeVisitor<T> cv = (CompositeVisitor<T>)visitor;
-            state.children.forEach((key, config) -> {
+            current.children.forEach((key, config) -> {
                 result.set(cv.visitChild(key, config));
             });
         } else {
-            state.cachedState.getData().forEach(visitor::visitKey);
+            current.cachedState.getData().forEach(visitor::visitKey);
         }
         return result.get();
     }
@@ -301,6 +340,6 @@ public class DefaultCompositeConfig extends AbstractDependentConfig implements c
 
     @Override
     public String toString() {
-        return "[" + String.join(" ", state.children.keySet()) + "]";
+        return "[" + String.join(" ", state.get().children.keySet()) + "]";
     }
 }
@@ -1,14 +1,14 @@
 package com.netflix.archaius.config;
 
 import com.netflix.archaius.api.Config;
-import com.netflix.archaius.api.ConfigListener;
+import com.netflix.archaius.api.KeyedConfigListener;
 
 /**
  * Default implementation with noops for all ConfigListener events
  * @author elandau
  *
  */
-public class DefaultConfigListener implements ConfigListener {
+public class DefaultConfigListener implements KeyedConfigListener {
 
     @Override
     public void onConfigAdded(Config config) {
@@ -12,11 +12,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -30,7 +31,8 @@ public class DefaultLayeredConfig extends AbstractDependentConfig implements Lay
     private static final Logger LOG = LoggerFactory.getLogger(DefaultLayeredConfig.class);
     
     private final ConfigListener listener;
-    private volatile ImmutableCompositeState state = new ImmutableCompositeState(Collections.emptyList());
+    private final AtomicReference<ImmutableCompositeState> state =
+            new AtomicReference<>(new ImmutableCompositeState(Collections.emptyList()));
 
     /**
      * Listener to be added to any component configs which updates the config map and triggers updates on all listeners
@@ -59,6 +61,15 @@ public class DefaultLayeredConfig extends AbstractDependentConfig implements Lay
             dlc.notifyConfigUpdated(dlc);
         }
 
+        @Override
+        public void onSourceConfigUpdated(DefaultLayeredConfig dlc, Config config, Set<String> changedKeys) {
+            if (dlc.refreshState(config, changedKeys)) {
+                dlc.notifyConfigUpdated(dlc, changedKeys);
+            } else {
+                dlc.notifyConfigUpdated(dlc);
+            }
+        }
+
         @Override
         public void onSourceError(Throwable error, DefaultLayeredConfig dlc, Config config) {
             dlc.notifyError(error, dlc);
@@ -74,8 +85,41 @@ public class DefaultLayeredConfig extends AbstractDependentConfig implements Lay
         this.listener = new LayeredConfigListener(this);
     }
     
+    /**
+     * Not synchronized, since the listener path runs while a child may hold its own lock and must not wait for this
+     * config's monitor, which the mutations hold while calling into children.  Instead the new state is swapped in with
+     * a compare-and-set and rebuilt from the latest state if another update won the race.
+     */
     private void refreshState() {
-        this.state = state.refresh();
+        updateState(ImmutableCompositeState::refresh);
+    }
+
+    /**
+     * Only re-resolve the changed keys if the delta can be trusted, otherwise fall back to a full rebuild.  The delta
+     * is checked against and applied to the state that is replaced, retrying like {@link #refreshState()}.
+     * @return true if the partial update was applied
+     */
+    private boolean refreshState(Config source, Set<String> changedKeys) {
+        while (true) {
+            ImmutableCompositeState current = state.get();
+            boolean partial = current.supportsKeyedUpdate(source);
+            ImmutableCompositeState updated = partial
+                    ? rebuildState(true, () -> current.refresh(changedKeys))
+                    : rebuildState(false, current::refresh);
+            if (state.compareAndSet(current, updated)) {
+                return partial;
+            }
+        }
+    }
+
+    private void updateState(UnaryOperator<ImmutableCompositeState> update) {
+        while (true) {
+            ImmutableCompositeState current = state.get();
+            ImmutableCompositeState updated = rebuildState(false, () -> update.apply(current));
+            if (state.compareAndSet(current, updated)) {
+                return;
+            }
+        }
     }
 
     @Override
@@ -91,7 +135,7 @@ public class DefaultLayeredConfig extends AbstractDependentConfig implements Lay
             return;
         }
         
-        state = state.addChild(new LayerAndConfig(layer, child, position));
+        updateState(current -> current.addChild(new LayerAndConfig(layer, child, position)));
         child.setStrInterpolator(getStrInterpolator());
         child.setDecoder(getDecoder());
         notifyConfigUpdated(this);
@@ -100,7 +144,7 @@ public class DefaultLayeredConfig extends AbstractDependentConfig implements Lay
     
     @Override
     public Collection<Config> getConfigsAtLayer(Layer layer) {
-        return state.children.stream()
+        return state.get().children.stream()
                 .filter(holder -> holder.layer.equals(layer))
                 .map(holder -> holder.config)
                 .collect(Collectors.toList());
@@ -109,9 +153,9 @@ public class DefaultLayeredConfig extends AbstractDependentConfig implements Lay
     @Override
     public synchronized Optional<Config> removeConfig(Layer layer, String name) {
         LOG.info("Removing property source '{}' from layer '{}'", name, layer);
-        Optional<Config> previous = state.findChild(layer, name);
+        Optional<Config> previous = state.get().findChild(layer, name);
         if (previous.isPresent()) {
-            this.state = state.removeChild(layer, name);
+            updateState(current -> current.removeChild(layer, name));
             this.notifyConfigUpdated(this);
         }
         return previous;
@@ -199,31 +243,14 @@ public class DefaultLayeredConfig extends AbstractDependentConfig implements Lay
         ImmutableCompositeState(List<LayerAndConfig> entries) {
             this.children = entries;
             this.children.sort(ByPriorityAndInsertionOrder);
-            Map<String, Object> data = new HashMap<>();
-            Map<String, Config> instrumentedKeys = new HashMap<>();
-            for (LayerAndConfig child : children) {
-                boolean instrumented = child.config.instrumentationEnabled();
-                child.config.forEachPropertyUninstrumented(
-                        (k, v) -> updateData(data, instrumentedKeys, k, v, child.config, instrumented));
-            }
-            this.cachedState = new CachedState(data, instrumentedKeys);
+            this.cachedState = createCachedState(children);
         }
 
-        private void updateData(
-                Map<String, Object> data,
-                Map<String, Config> instrumentedKeys,
-                String key,
-                Object value,
-                Config childConfig,
-                boolean instrumented) {
-            if (!data.containsKey(key)) {
-                if (instrumented) {
-                    instrumentedKeys.put(key, childConfig);
-                }
-                data.put(key, value);
-            }
+        private ImmutableCompositeState(List<LayerAndConfig> sortedEntries, CachedState cachedState) {
+            this.children = sortedEntries;
+            this.cachedState = cachedState;
         }
-        
+
         public ImmutableCompositeState addChild(LayerAndConfig layerAndConfig) {
             List<LayerAndConfig> newChildren = new ArrayList<>(this.children);
             newChildren.add(layerAndConfig);
@@ -247,13 +274,41 @@ public class DefaultLayeredConfig extends AbstractDependentConfig implements Lay
                     .map(LayerAndConfig::getConfig);
         }
 
+        /**
+         * Reuses the already sorted children without sorting them again, since concurrent refreshes share the list.
+         */
         ImmutableCompositeState refresh() {
-            return new ImmutableCompositeState(children);
+            return new ImmutableCompositeState(children, createCachedState(children));
+        }
+
+        private static CachedState createCachedState(List<LayerAndConfig> children) {
+            CachedState.Builder builder = new CachedState.Builder();
+            for (LayerAndConfig child : children) {
+                Config instrumentedConfig = child.config.instrumentationEnabled() ? child.config : null;
+                child.config.forEachPropertyUninstrumented((k, v) -> builder.putIfAbsent(k, v, instrumentedConfig));
+            }
+            return builder.build();
+        }
+
+        boolean supportsKeyedUpdate(Config source) {
+            return CachedState.supportsKeyedUpdate(configs(), source);
+        }
+
+        ImmutableCompositeState refresh(Set<String> changedKeys) {
+            return new ImmutableCompositeState(children, cachedState.withUpdatedKeys(configs(), changedKeys));
+        }
+
+        private List<Config> configs() {
+            List<Config> configs = new ArrayList<>(children.size());
+            for (LayerAndConfig child : children) {
+                configs.add(child.config);
+            }
+            return configs;
         }
     }
 
     @Override
     public CachedState getState() {
-        return state.cachedState;
+        return state.get().cachedState;
     }
 }
@@ -1,11 +1,12 @@
 package com.netflix.archaius.config;
 
 import com.netflix.archaius.api.Config;
-import com.netflix.archaius.api.ConfigListener;
+import com.netflix.archaius.api.KeyedConfigListener;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * ConfigListener for the dependent/wrapper config paradigm. Most notably makes the reference to the dependent config
@@ -14,7 +15,7 @@ import java.util.Optional;
  *
  * @param <T> The type of the dependent config
  */
-abstract class DependentConfigListener<T extends AbstractConfig> implements ConfigListener {
+abstract class DependentConfigListener<T extends AbstractConfig> implements KeyedConfigListener {
     private final Reference<T> dependentConfigRef;
 
     DependentConfigListener(T dependentConfig) {
@@ -36,6 +37,11 @@ abstract class DependentConfigListener<T extends AbstractConfig> implements Conf
         updateState(config).ifPresent(depConfig -> onSourceConfigUpdated(depConfig, config));
     }
 
+    @Override
+    public void onConfigUpdated(Config config, Set<String> changedKeys) {
+        updateState(config).ifPresent(depConfig -> onSourceConfigUpdated(depConfig, config, changedKeys));
+    }
+
     @Override
     public void onError(Throwable error, Config config) {
         updateState(config).ifPresent(depConfig -> onSourceError(error, depConfig, config));
@@ -46,6 +52,14 @@ abstract class DependentConfigListener<T extends AbstractConfig> implements Conf
     public abstract void onSourceConfigUpdated(T dependentConfig, Config sourceConfig);
     public abstract void onSourceError(Throwable error, T dependentConfig, Config sourceConfig);
 
+    /**
+     * Called when the source config reports which keys changed.  Dependent configs that can't apply a partial
+     * update may rely on the default, which treats it as a full update.
+     */
+    public void onSourceConfigUpdated(T dependentConfig, Config sourceConfig, Set<String> changedKeys) {
+        onSourceConfigUpdated(dependentConfig, sourceConfig);
+    }
+
     /**
      * Checks that the dependent Config object is still alive, and if so it updates its local state from the wrapped
      * source.
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.config;
+
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import com.netflix.archaius.api.Config;
+import com.netflix.archaius.api.ConfigListener;
+import com.netflix.archaius.api.Decoder;
+import com.netflix.archaius.api.PropertyDetails;
+import com.netflix.archaius.api.StrInterpolator;
+import com.netflix.archaius.api.StrInterpolator.Lookup;
+import com.netflix.archaius.interpolate.ConfigStrLookup;
+
+/**
+ * View into a dependent config for properties starting with a specified prefix, which unlike
+ * {@link PrefixedViewConfig} doesn't keep a copy of the matching properties.  Reads go straight to the current state
+ * of the parent with the prefixed key, and iteration uses the range of the parent's keys with the prefix.  Nothing
+ * needs to be rebuilt when the parent changes, so the view doesn't register any listener of its own.
+ *
+ * @see AbstractDependentConfig#setLazyPrefixedViews(boolean)
+ */
+public class LazyPrefixedViewConfig extends AbstractConfig {
+    private final AbstractDependentConfig config;
+    private final String prefix;
+    private final Lookup nonPrefixedLookup;
+
+    public LazyPrefixedViewConfig(final String prefix, final AbstractDependentConfig config) {
+        this.config = config;
+        this.prefix = prefix.endsWith(".") ? prefix : prefix + ".";
+        this.nonPrefixedLookup = ConfigStrLookup.from(config);
+    }
+
+    /** @return The prefixed keys of the parent's current state */
+    private List<String> prefixedRange() {
+        return config.getState().getKeysWithPrefix(prefix);
+    }
+
+    @Override
+    public Object getRawProperty(String key) {
+        return config.getRawProperty(prefix + key);
+    }
+
+    @Override
+    public Object getRawPropertyUninstrumented(String key) {
+        return config.getRawPropertyUninstrumented(prefix + key);
+    }
+
+    @Override
+    protected <T> T getValueWithDefault(Type type, String key, T defaultValue) {
+        // Decode with the parent so that its cache of decoded values is used
+        return config.getValueWithDefault(type, prefix + key, defaultValue);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return config.containsKey(prefix + key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return prefixedRange().isEmpty();
+    }
+
+    @Override
+    public Iterator<String> getKeys() {
+        return keys().iterator();
+    }
+
+    @Override
+    public Iterable<String> keys() {
+        List<String> range = prefixedRange();
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return range.get(index).substring(prefix.length());
+            }
+
+            @Override
+            public int size() {
+                return range.size();
+            }
+        };
+    }
+
+    @Override
+    public void forEachProperty(BiConsumer<String, Object> consumer) {
+        for (String key : prefixedRange()) {
+            Object value = config.getRawProperty(key);
+            if (value != null) {
+                consumer.accept(key.substring(prefix.length()), value);
+            }
+        }
+    }
+
+    @Override
+    public void forEachPropertyUninstrumented(BiConsumer<String, Object> consumer) {
+        CachedState state = config.getState();
+        for (String key : state.getKeysWithPrefix(prefix)) {
+            consumer.accept(key.substring(prefix.length()), state.getEntry(key).value);
+        }
+    }
+
+    @Override
+    public <T> T accept(Visitor<T> visitor) {
+        T t = null;
+        CachedState state = config.getState();
+        for (String key : state.getKeysWithPrefix(prefix)) {
+            t = visitor.visitKey(key.substring(prefix.length()), state.getEntry(key).value);
+        }
+        return t;
+    }
+
+    @Override
+    public Config getPrefixedView(String prefix) {
+        if (prefix == null || prefix.isEmpty() || prefix.equals(".")) {
+            return this;
+        }
+        return new LazyPrefixedViewConfig(this.prefix + prefix, config);
+    }
+
+    @Override
+    public void recordUsage(PropertyDetails propertyDetails) {
+        config.recordUsage(prefix + propertyDetails.getKey());
+    }
+
+    @Override
+    public boolean instrumentationEnabled() {
+        return config.instrumentationEnabled();
+    }
+
+    @Override
+    protected Lookup getLookup() {
+        return nonPrefixedLookup;
+    }
+
+    @Override
+    public synchronized void setDecoder(Decoder decoder) {
+        super.setDecoder(decoder);
+        config.setDecoder(decoder);
+    }
+
+    @Override
+    public synchronized void setStrInterpolator(StrInterpolator interpolator) {
+        super.setStrInterpolator(interpolator);
+        config.setStrInterpolator(interpolator);
+    }
+
+    @Override
+    public synchronized void addListener(ConfigListener listener) {
+        super.addListener(listener);
+        config.addListener(listener);
+    }
+
+    @Override
+    public synchronized void removeListener(ConfigListener listener) {
+        super.removeListener(listener);
+        config.removeListener(listener);
+    }
+}
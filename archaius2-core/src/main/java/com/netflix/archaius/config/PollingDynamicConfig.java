@@ -16,36 +16,70 @@
 package com.netflix.archaius.config;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.netflix.archaius.api.ConfigMetrics;
 import com.netflix.archaius.api.config.PollingStrategy;
 import com.netflix.archaius.api.PropertyDetails;
 import com.netflix.archaius.config.polling.PollingResponse;
+import com.netflix.archaius.config.polling.PollingSnapshotStore;
+import com.netflix.archaius.config.polling.PollingTask;
 import com.netflix.archaius.instrumentation.AccessMonitorUtil;
+import com.netflix.archaius.util.ThreadFactories;
 
 /**
  * Special DynamicConfig that reads an entire snapshot of the configuration
  * from a source and performs a delta comparison.  Each new snapshot becomes
- * the new immutable Map backing this config.  
+ * the new immutable Map backing this config.  Sources that support it may instead
+ * return only the changes since their previous response, see {@link PollingResponse#forDelta},
+ * which are applied to the current snapshot.  Listeners are only notified when
+ * the snapshot differs from the previous one, and {@link com.netflix.archaius.api.KeyedConfigListener}s
+ * receive the keys that were added, removed or changed.
  */
 public class PollingDynamicConfig extends AbstractConfig {
     private static final Logger LOG = LoggerFactory.getLogger(PollingDynamicConfig.class);
     
     private volatile Map<String, String> current = Collections.emptyMap();
     private volatile Map<String, String> currentIds = Collections.emptyMap();
+    // PropertyDetails of the current properties that were recorded since the last update, so that instrumented
+    // reads don't allocate
+    private volatile ConcurrentHashMap<String, PropertyDetails> currentDetails = new ConcurrentHashMap<>();
     private final AtomicBoolean busy = new AtomicBoolean();
     private final Callable<PollingResponse> reader;
     private final AtomicLong updateCounter = new AtomicLong();
     private final AtomicLong errorCounter = new AtomicLong();
     private final PollingStrategy strategy;
+    private final PollingSnapshotStore snapshotStore;
+    private final ExecutorService snapshotWriter;
+    // Latest properties waiting to be written, polls made while a write is pending only replace it
+    private final AtomicReference<PollingResponse> pendingSnapshot = new AtomicReference<>();
+    private volatile boolean snapshotCurrent;
+    private volatile Thread initialPollThread;
+    // Metrics are resolved once in setMetrics() instead of on every poll
+    private volatile ConfigMetrics.Timer pollTimer = ConfigMetrics.noop().timer(null, null);
+    private volatile ConfigMetrics.Gauge pollSizeGauge = ConfigMetrics.noop().gauge(null, null);
+    private volatile ConfigMetrics.Counter pollErrorCounter = ConfigMetrics.noop().counter(null, null);
+    private volatile boolean shutdown;
     // Holds the AccessMonitorUtil and whether instrumentation is enabled. This is encapsulated to avoid
     // race conditions while also allowing for on-the-fly enabling and disabling of instrumentation.
     private volatile Instrumentation instrumentation;
@@ -56,19 +90,67 @@ public class PollingDynamicConfig extends AbstractConfig {
 
     public PollingDynamicConfig(
             Callable<PollingResponse> reader, PollingStrategy strategy, AccessMonitorUtil accessMonitorUtil) {
+        this(reader, strategy, accessMonitorUtil, null);
+    }
+
+    /**
+     * @param snapshotStore Optional store of the last successfully polled properties.  When it holds a snapshot the
+     *                      config starts out with those properties and the strategy's initial poll, which may block
+     *                      until the source is reachable, runs in the background instead of in this constructor.
+     *                      Every successful poll that changes the properties replaces the snapshot.  The snapshot
+     *                      is written by a background thread so that polling isn't delayed by the disk, and
+     *                      {@link #shutdown()} waits for the last pending write.
+     */
+    public PollingDynamicConfig(
+            Callable<PollingResponse> reader,
+            PollingStrategy strategy,
+            AccessMonitorUtil accessMonitorUtil,
+            PollingSnapshotStore snapshotStore) {
         this.reader = reader;
         this.strategy = strategy;
+        this.snapshotStore = snapshotStore;
+        this.snapshotWriter = snapshotStore != null ? newSnapshotWriter() : null;
         this.instrumentation = new Instrumentation(accessMonitorUtil, accessMonitorUtil != null);
-        strategy.execute(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    update();
-                } catch (Exception e) {
-                    throw new RuntimeException("Failed to poll configuration", e);
+
+        PollingTask poll = () -> {
+            try {
+                return update();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to poll configuration", e);
+            }
+        };
+
+        PollingResponse snapshot = snapshotStore != null ? snapshotStore.load() : null;
+        if (snapshot == null) {
+            strategy.execute(poll);
+            return;
+        }
+
+        LOG.info("Loaded {} properties from snapshot {}, refreshing in the background",
+                snapshot.getToAdd().size(), snapshotStore.getFile());
+        current = Collections.unmodifiableMap(snapshot.getToAdd());
+        currentIds = Collections.unmodifiableMap(snapshot.getNameToIdsMap());
+        currentDetails = new ConcurrentHashMap<>();
+        snapshotCurrent = true;
+
+        Thread thread = ThreadFactories.newNamedDaemonThreadFactory("Archaius-Initial-Poll-%d").newThread(() -> {
+            try {
+                if (shutdown) {
+                    return;
+                }
+                Future<?> registration = strategy.execute(poll);
+                if (shutdown) {
+                    // shutdown() ran while the initial poll was in progress and may have missed the registration
+                    registration.cancel(false);
                 }
+            } catch (Exception e) {
+                LOG.warn("Failed to start polling, keeping properties from snapshot {}", snapshotStore.getFile(), e);
+            } finally {
+                initialPollThread = null;
             }
         });
+        initialPollThread = thread;
+        thread.start();
     }
 
     @Override
@@ -85,7 +167,7 @@ public class PollingDynamicConfig extends AbstractConfig {
     public Object getRawProperty(String key) {
         Object rawProperty = current.get(key);
         if (instrumentationEnabled() && rawProperty != null) {
-            recordUsage(new PropertyDetails(key, currentIds.get(key), rawProperty));
+            recordUsage(getPropertyDetails(key, rawProperty));
         }
         return rawProperty;
     }
@@ -95,22 +177,55 @@ public class PollingDynamicConfig extends AbstractConfig {
         return current.get(key);
     }
 
-    private void update() throws Exception {
+    @Override
+    public void setMetrics(ConfigMetrics metrics) {
+        super.setMetrics(metrics);
+        ConfigMetrics resolved = getMetrics();
+        this.pollTimer = resolved.timer(ConfigMetrics.POLL, getName());
+        this.pollSizeGauge = resolved.gauge(ConfigMetrics.POLL_SIZE, getName());
+        this.pollErrorCounter = resolved.counter(ConfigMetrics.POLL_ERRORS, getName());
+    }
+
+    private PollingTask.Result update() throws Exception {
         // OK to ignore calls to update() if already busy updating 
         if (busy.compareAndSet(false, true)) {
             updateCounter.incrementAndGet();
+            long start = System.nanoTime();
             try {
-                PollingResponse response = reader.call();
+                PollingResponse response;
+                try {
+                    response = reader.call();
+                } finally {
+                    pollTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
                 if (response.hasData()) {
-                    current = Collections.unmodifiableMap(response.getToAdd());
-                    currentIds = Collections.unmodifiableMap(response.getNameToIdsMap());
-                    notifyConfigUpdated(this);
+                    pollSizeGauge.set(response.getToAdd().size() + response.getToRemove().size());
+                    Set<String> changedKeys;
+                    if (response.isIncremental()) {
+                        changedKeys = applyDelta(response);
+                    } else {
+                        Map<String, String> previous = current;
+                        current = Collections.unmodifiableMap(response.getToAdd());
+                        currentIds = Collections.unmodifiableMap(response.getNameToIdsMap());
+                        currentDetails = new ConcurrentHashMap<>();
+                        changedKeys = changedKeys(previous, current);
+                    }
+                    if (!changedKeys.isEmpty() || !snapshotCurrent) {
+                        saveSnapshot();
+                    }
+                    if (!changedKeys.isEmpty()) {
+                        notifyConfigUpdated(this, changedKeys);
+                        return PollingTask.Result.CHANGED;
+                    }
+                    return PollingTask.Result.UNCHANGED;
                 }
+                return PollingTask.Result.NO_DATA;
             }
             catch (Exception e) {
                 LOG.trace("Error reading data from remote server ", e);
                 
                 errorCounter.incrementAndGet();
+                pollErrorCounter.increment();
                 try {
                     notifyError(e, this);
                 }
@@ -123,10 +238,121 @@ public class PollingDynamicConfig extends AbstractConfig {
                 busy.set(false);
             }
         }
+        return PollingTask.Result.UNCHANGED;
+    }
+
+    private static ExecutorService newSnapshotWriter() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                ThreadFactories.newNamedDaemonThreadFactory("Archaius-Snapshot-Writer-%d"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Schedule a write of the current properties.  Only one write is queued at a time, later polls replace the
+     * properties it will write.
+     */
+    private void saveSnapshot() {
+        if (snapshotStore == null) {
+            return;
+        }
+        snapshotCurrent = true;
+        if (pendingSnapshot.getAndSet(PollingResponse.forSnapshot(current, currentIds)) != null) {
+            return;
+        }
+        try {
+            snapshotWriter.execute(this::writeSnapshot);
+        } catch (RejectedExecutionException e) {
+            // Shut down, the properties of the last poll are not persisted
+            pendingSnapshot.set(null);
+        }
+    }
+
+    private void writeSnapshot() {
+        PollingResponse snapshot = pendingSnapshot.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            snapshotStore.save(snapshot.getToAdd(), snapshot.getNameToIdsMap());
+        } catch (Exception e) {
+            // Retried after the next successful poll
+            snapshotCurrent = false;
+            LOG.warn("Failed to save config snapshot {}", snapshotStore.getFile(), e);
+        }
+    }
+
+    /**
+     * Apply the changes of an incremental response to a copy of the current properties
+     * @return All keys that were added, removed or whose value changed
+     */
+    private Set<String> applyDelta(PollingResponse response) {
+        if (response.getToAdd().isEmpty() && response.getToRemove().isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Map<String, String> previous = current;
+        Map<String, String> values = new HashMap<>(previous);
+        Map<String, String> ids = new HashMap<>(currentIds);
+        Set<String> touched = new HashSet<>(response.getToRemove());
+        touched.addAll(response.getToAdd().keySet());
+        for (String key : response.getToRemove()) {
+            values.remove(key);
+        }
+        values.putAll(response.getToAdd());
+        // A new value may come without an id, which must not keep the id of the value it replaced
+        ids.keySet().removeAll(touched);
+        ids.putAll(response.getNameToIdsMap());
+
+        current = Collections.unmodifiableMap(values);
+        currentIds = Collections.unmodifiableMap(ids);
+        currentDetails = new ConcurrentHashMap<>();
+
+        Set<String> changed = new HashSet<>();
+        for (String key : touched) {
+            if (!Objects.equals(previous.get(key), values.get(key))) {
+                changed.add(key);
+            }
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * @return All keys that were added, removed or whose value changed between the two snapshots
+     */
+    private static Set<String> changedKeys(Map<String, String> previous, Map<String, String> next) {
+        Set<String> changed = new HashSet<>();
+        next.forEach((key, value) -> {
+            if (!Objects.equals(value, previous.get(key))) {
+                changed.add(key);
+            }
+        });
+        for (String key : previous.keySet()) {
+            if (!next.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return Collections.unmodifiableSet(changed);
     }
 
     public void shutdown() {
+        shutdown = true;
+        Thread thread = initialPollThread;
+        if (thread != null) {
+            // Stop a strategy that is still retrying the initial poll
+            thread.interrupt();
+        }
         strategy.shutdown();
+        if (snapshotWriter != null) {
+            snapshotWriter.shutdown();
+            try {
+                if (!snapshotWriter.awaitTermination(10, TimeUnit.SECONDS)) {
+                    LOG.warn("Timed out writing config snapshot {}", snapshotStore.getFile());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
     
     public long getUpdateCounter() {
@@ -152,7 +378,7 @@ public class PollingDynamicConfig extends AbstractConfig {
         boolean instrumentationEnabled = instrumentationEnabled();
         current.forEach((k, v) -> {
             if (instrumentationEnabled) {
-                recordUsage(new PropertyDetails(k, currentIds.get(k), v));
+                recordUsage(getPropertyDetails(k, v));
             }
             consumer.accept(k, v);
         });
@@ -171,15 +397,27 @@ public class PollingDynamicConfig extends AbstractConfig {
             // Instrumentation calls from outside PollingDynamicConfig may not have ids populated, so we replace the id
             // here if the id isn't present.
             if (propertyDetails.getId() == null) {
-                propertyDetails = new PropertyDetails(
-                        propertyDetails.getKey(),
-                        currentIds.get(propertyDetails.getKey()),
-                        propertyDetails.getValue());
+                propertyDetails = getPropertyDetails(propertyDetails.getKey(), propertyDetails.getValue());
             }
             instrumentation.getAccessMonitorUtil().registerUsage(propertyDetails);
         }
     }
 
+    /**
+     * @return Details of the property with its current id, reused for as long as the value doesn't change
+     */
+    private PropertyDetails getPropertyDetails(String key, Object value) {
+        ConcurrentHashMap<String, PropertyDetails> details = currentDetails;
+        PropertyDetails propertyDetails = details.get(key);
+        if (propertyDetails == null || propertyDetails.getValue() != value) {
+            propertyDetails = new PropertyDetails(key, currentIds.get(key), value);
+            if (value == current.get(key)) {
+                details.put(key, propertyDetails);
+            }
+        }
+        return propertyDetails;
+    }
+
     @Override
     public boolean instrumentationEnabled() {
         return instrumentation.getEnabled() && instrumentation.getAccessMonitorUtil() != null;
@@ -15,9 +15,8 @@
  */
 package com.netflix.archaius.config;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.BiConsumer;
 
 import com.netflix.archaius.api.Config;
 import com.netflix.archaius.api.ConfigListener;
@@ -78,19 +77,24 @@ public class PrefixedViewConfig extends AbstractDependentConfig {
     }
 
     private CachedState createState(Config config) {
-        Map<String, Object> data = new LinkedHashMap<>();
-        Map<String, Config> instrumentedKeys = new LinkedHashMap<>();
-        boolean instrumented = config.instrumentationEnabled();
-        config.forEachPropertyUninstrumented((k, v) -> {
-            if (k.startsWith(prefix)) {
-                String key = k.substring(prefix.length());
-                data.put(key, v);
-                if (instrumented) {
-                    instrumentedKeys.put(key, config);
-                }
+        CachedState.Builder builder = new CachedState.Builder();
+        Config instrumentedConfig = config.instrumentationEnabled() ? config : null;
+        BiConsumer<String, Object> collector = (k, v) -> builder.put(k.substring(prefix.length()), v, instrumentedConfig);
+
+        if (config instanceof AbstractDependentConfig) {
+            // Only visit the matching keys using the prefix index of the parent's state
+            CachedState parentState = ((AbstractDependentConfig) config).getState();
+            for (String k : parentState.getKeysWithPrefix(prefix)) {
+                collector.accept(k, parentState.getEntry(k).value);
             }
-        });
-        return new CachedState(data, instrumentedKeys);
+        } else {
+            config.forEachPropertyUninstrumented((k, v) -> {
+                if (k.startsWith(prefix)) {
+                    collector.accept(k, v);
+                }
+            });
+        }
+        return builder.build();
     }
 
     @Override
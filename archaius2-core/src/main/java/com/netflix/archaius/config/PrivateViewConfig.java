@@ -15,8 +15,6 @@
  */
 package com.netflix.archaius.config;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Map.Entry;
 
 import com.netflix.archaius.api.Config;
@@ -68,16 +66,10 @@ public class PrivateViewConfig extends AbstractDependentConfig {
     }
 
     private CachedState createState(Config config) {
-        Map<String, Object> data = new LinkedHashMap<>();
-        Map<String, Config> instrumentedKeys = new LinkedHashMap<>();
-        boolean instrumented = config.instrumentationEnabled();
-        config.forEachPropertyUninstrumented((k, v) -> {
-            data.put(k, v);
-            if (instrumented) {
-                instrumentedKeys.put(k, config);
-            }
-        });
-        return new CachedState(data, instrumentedKeys);
+        CachedState.Builder builder = new CachedState.Builder();
+        Config instrumentedConfig = config.instrumentationEnabled() ? config : null;
+        config.forEachPropertyUninstrumented((k, v) -> builder.put(k, v, instrumentedConfig));
+        return builder.build();
     }
 
     @Override
@@ -0,0 +1,254 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.config.polling;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.archaius.api.config.PollingStrategy;
+import com.netflix.archaius.util.Futures;
+
+/**
+ * PollingStrategy whose interval adapts to what the polls find, within configurable bounds.
+ *
+ * <ul>
+ * <li>While polls keep finding no changes the interval grows by the idle multiplier, up to the max interval.</li>
+ * <li>Once a poll finds changes the interval drops back to the min interval, since more changes tend to follow.</li>
+ * <li>Failed polls, including the retries of the initial poll, back off exponentially up to the max interval.</li>
+ * <li>Every delay is randomized by the jitter factor so that instances started together don't poll in sync.</li>
+ * </ul>
+ *
+ * Changes are only observed for a {@link PollingTask} such as the one used by
+ * {@link com.netflix.archaius.config.PollingDynamicConfig}.  Any other Runnable is treated as if it never finds
+ * changes.
+ *
+ * <pre>
+ * {@code
+ *  new PollingDynamicConfig(reader, AdaptivePollingStrategy.builder()
+ *          .withMinInterval(10, TimeUnit.SECONDS)
+ *          .withMaxInterval(5, TimeUnit.MINUTES)
+ *          .build());
+ * }
+ * </pre>
+ */
+public class AdaptivePollingStrategy implements PollingStrategy {
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptivePollingStrategy.class);
+
+    public static class Builder {
+        private long minIntervalMillis = TimeUnit.SECONDS.toMillis(30);
+        private long maxIntervalMillis = TimeUnit.MINUTES.toMillis(5);
+        private double idleMultiplier = 1.5;
+        private double errorMultiplier = 2.0;
+        private double jitter = 0.2;
+        private PollingScheduler scheduler;
+
+        /** Interval after changes were found, and the initial interval.  Defaults to 30 seconds. */
+        public Builder withMinInterval(long interval, TimeUnit units) {
+            this.minIntervalMillis = units.toMillis(interval);
+            return this;
+        }
+
+        /** Upper bound for the interval while idle and for the error backoff.  Defaults to 5 minutes. */
+        public Builder withMaxInterval(long interval, TimeUnit units) {
+            this.maxIntervalMillis = units.toMillis(interval);
+            return this;
+        }
+
+        /** Factor by which the interval grows after each poll that found no changes.  Defaults to 1.5. */
+        public Builder withIdleMultiplier(double idleMultiplier) {
+            this.idleMultiplier = idleMultiplier;
+            return this;
+        }
+
+        /** Factor by which the delay grows after each consecutive failed poll.  Defaults to 2. */
+        public Builder withErrorMultiplier(double errorMultiplier) {
+            this.errorMultiplier = errorMultiplier;
+            return this;
+        }
+
+        /** Maximum fraction by which each delay is randomly shortened or lengthened.  Defaults to 0.2. */
+        public Builder withJitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /** Scheduler running the polls.  Defaults to {@link PollingScheduler#getDefault()}. */
+        public Builder withScheduler(PollingScheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public AdaptivePollingStrategy build() {
+            if (minIntervalMillis <= 0 || maxIntervalMillis < minIntervalMillis) {
+                throw new IllegalArgumentException("Intervals must satisfy 0 < min <= max");
+            }
+            if (idleMultiplier < 1 || errorMultiplier < 1) {
+                throw new IllegalArgumentException("Multipliers must be >= 1");
+            }
+            if (jitter < 0 || jitter >= 1) {
+                throw new IllegalArgumentException("Jitter must be in [0, 1)");
+            }
+            return new AdaptivePollingStrategy(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    private final PollingScheduler scheduler;
+    private final String name;
+    private final Set<Future<?>> registrations = ConcurrentHashMap.newKeySet();
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final double idleMultiplier;
+    private final double errorMultiplier;
+    private final double jitter;
+
+    /** Interval based on the results of successful polls, before jitter */
+    private volatile long intervalMillis;
+
+    /** Backoff after consecutive failed polls, or 0 after a successful one */
+    private volatile long errorDelayMillis;
+
+    private volatile boolean shutdown;
+
+    private AdaptivePollingStrategy(Builder builder) {
+        this.scheduler = builder.scheduler != null ? builder.scheduler : PollingScheduler.getDefault();
+        this.name = "AdaptivePollingStrategy-" + counter.incrementAndGet();
+        this.minIntervalMillis = builder.minIntervalMillis;
+        this.maxIntervalMillis = builder.maxIntervalMillis;
+        this.idleMultiplier = builder.idleMultiplier;
+        this.errorMultiplier = builder.errorMultiplier;
+        this.jitter = builder.jitter;
+        this.intervalMillis = minIntervalMillis;
+    }
+
+    @Override
+    public Future<?> execute(final Runnable callback) {
+        // Same as FixedPollingStrategy the first poll is done in the calling thread until it succeeds
+        while (true) {
+            try {
+                onResult(runOnce(callback));
+                break;
+            }
+            catch (Exception e) {
+                long delay = onError();
+                LOG.warn("Fail to poll the polling source, retrying in {} ms", delay, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                }
+                catch (InterruptedException e1) {
+                    Thread.currentThread().interrupt();
+                    return Futures.immediateFailure(e);
+                }
+            }
+        }
+
+        if (Thread.interrupted()) {
+            // Interrupted by a shutdown while the initial poll succeeded
+            Thread.currentThread().interrupt();
+            return Futures.immediateFailure(new InterruptedException());
+        }
+        if (shutdown) {
+            return Futures.immediateFailure(new IllegalStateException("Polling strategy is shut down"));
+        }
+        Future<?> registration = scheduler.schedule(name, new PollingScheduler.Task() {
+            @Override
+            public long poll() {
+                onResult(runOnce(callback));
+                return nextDelay();
+            }
+
+            @Override
+            public long onError(Exception e) {
+                long delay = AdaptivePollingStrategy.this.onError();
+                LOG.warn("Failed to load properties, retrying in {} ms", delay, e);
+                return delay;
+            }
+        }, nextDelay(), TimeUnit.MILLISECONDS);
+        registrations.add(registration);
+        if (shutdown) {
+            // shutdown() may have run between scheduling and adding the registration
+            registration.cancel(false);
+            registrations.remove(registration);
+        }
+        return registration;
+    }
+
+    private static PollingTask.Result runOnce(Runnable callback) {
+        if (callback instanceof PollingTask) {
+            return ((PollingTask) callback).poll();
+        }
+        callback.run();
+        return PollingTask.Result.UNCHANGED;
+    }
+
+    private void onResult(PollingTask.Result result) {
+        errorDelayMillis = 0;
+        if (result == PollingTask.Result.CHANGED) {
+            intervalMillis = minIntervalMillis;
+        } else {
+            intervalMillis = Math.min(maxIntervalMillis, (long) Math.ceil(intervalMillis * idleMultiplier));
+        }
+    }
+
+    /** @return The delay until the next attempt after a failed poll */
+    private long onError() {
+        long delay = errorDelayMillis == 0
+                ? minIntervalMillis
+                : Math.min(maxIntervalMillis, (long) Math.ceil(errorDelayMillis * errorMultiplier));
+        errorDelayMillis = delay;
+        return jittered(delay);
+    }
+
+    private long nextDelay() {
+        return jittered(intervalMillis);
+    }
+
+    private long jittered(long delayMillis) {
+        if (jitter == 0) {
+            return delayMillis;
+        }
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(1, (long) (delayMillis * factor));
+    }
+
+    /**
+     * @return The current polling interval before jitter, i.e. excluding any error backoff
+     */
+    public long getInterval(TimeUnit units) {
+        return units.convert(intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        for (Future<?> registration : registrations) {
+            registration.cancel(false);
+        }
+        registrations.clear();
+    }
+}
@@ -15,27 +15,37 @@
  */
 package com.netflix.archaius.config.polling;
 
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.netflix.archaius.api.config.PollingStrategy;
 import com.netflix.archaius.util.Futures;
-import com.netflix.archaius.util.ThreadFactories;
 
 public class FixedPollingStrategy implements PollingStrategy {
     private static final Logger LOG = LoggerFactory.getLogger(FixedPollingStrategy.class);
-    private final ScheduledExecutorService executor;
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    private final PollingScheduler scheduler;
+    private final String name;
+    private final Set<Future<?>> registrations = ConcurrentHashMap.newKeySet();
     private final long interval;
     private final TimeUnit units;
+    private volatile boolean shutdown;
 
 
     public FixedPollingStrategy(long interval, TimeUnit units) {
-        this.executor = Executors.newSingleThreadScheduledExecutor(ThreadFactories.newNamedDaemonThreadFactory("Archaius-Poller-%d"));
+        this(interval, units, PollingScheduler.getDefault());
+    }
+
+    public FixedPollingStrategy(long interval, TimeUnit units, PollingScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.name = "FixedPollingStrategy-" + counter.incrementAndGet();
         this.interval = interval;
         this.units    = units;
 
@@ -59,21 +69,44 @@ public class FixedPollingStrategy implements PollingStrategy {
                 }
             }
         }
-        return executor.scheduleWithFixedDelay(new Runnable() {
+        if (Thread.interrupted()) {
+            // Interrupted by a shutdown while the initial poll succeeded
+            Thread.currentThread().interrupt();
+            return Futures.immediateFailure(new InterruptedException());
+        }
+        if (shutdown) {
+            return Futures.immediateFailure(new IllegalStateException("Polling strategy is shut down"));
+        }
+        final long intervalMillis = units.toMillis(interval);
+        Future<?> registration = scheduler.schedule(name, new PollingScheduler.Task() {
             @Override
-            public void run() {
-                try {
-                    callback.run();
-                } catch (Exception e) {
-                    LOG.warn("Failed to load properties", e);
-                }
+            public long poll() {
+                callback.run();
+                return intervalMillis;
+            }
+
+            @Override
+            public long onError(Exception e) {
+                LOG.warn("Failed to load properties", e);
+                return intervalMillis;
             }
-        }, interval, interval, units);
+        }, interval, units);
+        registrations.add(registration);
+        if (shutdown) {
+            // shutdown() may have run between scheduling and adding the registration
+            registration.cancel(false);
+            registrations.remove(registration);
+        }
+        return registration;
     }
 
     @Override
     public void shutdown() {
-        executor.shutdown();
+        shutdown = true;
+        for (Future<?> registration : registrations) {
+            registration.cancel(false);
+        }
+        registrations.clear();
     }
 
 }
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.config.polling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a single task registered with a {@link PollingScheduler}.
+ *
+ * Queue lag is the time between when a poll was due and when it actually started, which grows when the scheduler's
+ * fetch threads can't keep up with the registered sources.
+ */
+public class PollingMetrics {
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalDurationNanos = new LongAdder();
+    private final AtomicLong maxDurationNanos = new AtomicLong();
+    private final AtomicLong maxQueueLagNanos = new AtomicLong();
+    private volatile long lastDurationNanos;
+    private volatile long lastQueueLagNanos;
+
+    void recordPoll(long queueLagNanos, long durationNanos, boolean failed) {
+        queueLagNanos = Math.max(0, queueLagNanos);
+        polls.increment();
+        if (failed) {
+            errors.increment();
+        }
+        totalDurationNanos.add(durationNanos);
+        lastDurationNanos = durationNanos;
+        lastQueueLagNanos = queueLagNanos;
+        maxDurationNanos.accumulateAndGet(durationNanos, Math::max);
+        maxQueueLagNanos.accumulateAndGet(queueLagNanos, Math::max);
+    }
+
+    /** @return Number of polls, including failed ones */
+    public long getPollCount() {
+        return polls.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public long getLastPollDuration(TimeUnit units) {
+        return units.convert(lastDurationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxPollDuration(TimeUnit units) {
+        return units.convert(maxDurationNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getTotalPollDuration(TimeUnit units) {
+        return units.convert(totalDurationNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getLastQueueLag(TimeUnit units) {
+        return units.convert(lastQueueLagNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxQueueLag(TimeUnit units) {
+        return units.convert(maxQueueLagNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "PollingMetrics[polls=" + getPollCount()
+                + ", errors=" + getErrorCount()
+                + ", lastDurationMs=" + getLastPollDuration(TimeUnit.MILLISECONDS)
+                + ", maxDurationMs=" + getMaxPollDuration(TimeUnit.MILLISECONDS)
+                + ", lastQueueLagMs=" + getLastQueueLag(TimeUnit.MILLISECONDS)
+                + ", maxQueueLagMs=" + getMaxQueueLag(TimeUnit.MILLISECONDS)
+                + "]";
+    }
+}
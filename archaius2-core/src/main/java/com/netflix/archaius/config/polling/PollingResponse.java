@@ -50,6 +50,43 @@ public abstract class PollingResponse {
         };
     }
     
+    /**
+     * Response holding only the changes since the previous response, to be applied to the current properties
+     * instead of replacing them.
+     *
+     * @param toAdd Properties that were added or changed
+     * @param toRemove Properties that were removed
+     * @param ids Ids of the properties in toAdd
+     */
+    public static PollingResponse forDelta(final Map<String, String> toAdd, final Collection<String> toRemove, final Map<String, String> ids) {
+        return new PollingResponse() {
+            @Override
+            public Map<String, String> getToAdd() {
+                return toAdd;
+            }
+
+            @Override
+            public Collection<String> getToRemove() {
+                return toRemove;
+            }
+
+            @Override
+            public boolean hasData() {
+                return true;
+            }
+
+            @Override
+            public boolean isIncremental() {
+                return true;
+            }
+
+            @Override
+            public Map<String, String> getNameToIdsMap() {
+                return ids;
+            }
+        };
+    }
+
     public static PollingResponse noop() {
         return new PollingResponse() {
             @Override
@@ -75,4 +112,12 @@ public abstract class PollingResponse {
     public Map<String, String> getNameToIdsMap() {
         return Collections.emptyMap();
     }
+
+    /**
+     * @return True if the response only holds changes, see {@link #forDelta(Map, Collection, Map)}.  Otherwise
+     *  {@link #getToAdd()} is the complete set of properties.
+     */
+    public boolean isIncremental() {
+        return false;
+    }
 }
@@ -0,0 +1,391 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.config.polling;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.archaius.util.ThreadFactories;
+
+/**
+ * Scheduler shared by polling strategies so that many polled sources don't each hold on to their own, mostly idle,
+ * thread.  A small pool of timer threads only keeps track of when each registered task is due and hands it to the
+ * thread where the actual I/O is done.  By default each source gets a fetch thread of its own, which is released when
+ * idle, so that a source that is slow to respond only delays its own polls.  When enabled and running on JDK 21 or
+ * later the fetches run on virtual threads instead.
+ *
+ * A task is never run concurrently with itself, the next run is only scheduled once the previous one completed.
+ * With {@link Builder#withFetchThreadPerSource(boolean)} disabled the fetches of all sources share a bounded pool of
+ * fetch threads, whose queue is unbounded.  Once all fetch threads are busy with slow sources every other source is
+ * delayed until one of them completes.  Runnables registered with
+ * {@link #scheduleWithFixedDelay(String, Runnable, long, long, TimeUnit)}, such as the flush of
+ * {@link com.netflix.archaius.instrumentation.AccessMonitorUtil}, always run on a thread of their own and are not
+ * affected.
+ *
+ * Each registration keeps {@link PollingMetrics} of its poll duration and of its queue lag, i.e. how late polls
+ * start compared to when they were due.
+ *
+ * {@link FixedPollingStrategy}, {@link AdaptivePollingStrategy} and
+ * {@link com.netflix.archaius.instrumentation.AccessMonitorUtil} use {@link #getDefault()} unless given another
+ * scheduler.
+ */
+public class PollingScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(PollingScheduler.class);
+
+    private static final class DefaultHolder {
+        static final PollingScheduler INSTANCE = builder()
+                .withVirtualThreads(Boolean.getBoolean("archaius.polling.virtualThreads"))
+                .withFetchThreadPerSource(
+                        Boolean.parseBoolean(System.getProperty("archaius.polling.fetchThreadPerSource", "true")))
+                .build();
+    }
+
+    /**
+     * @return The scheduler shared by all polling strategies that weren't given one.  Set the system property
+     *  archaius.polling.virtualThreads to true to run its fetches on virtual threads, or
+     *  archaius.polling.fetchThreadPerSource to false to run the fetches of all sources on a shared pool.
+     */
+    public static PollingScheduler getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public static class Builder {
+        private int schedulerThreads = 1;
+        private int fetchThreads = 4;
+        private boolean virtualThreads = false;
+        private boolean fetchThreadPerSource = true;
+
+        /** Number of threads dispatching due tasks.  Defaults to 1. */
+        public Builder withSchedulerThreads(int schedulerThreads) {
+            this.schedulerThreads = schedulerThreads;
+            return this;
+        }
+
+        /**
+         * Max number of platform threads running fetches concurrently when the fetch threads are shared by all
+         * sources, idle threads are released.  Fetches that are due while all threads are busy wait in the queue of
+         * the pool.  Defaults to 4.
+         */
+        public Builder withFetchThreads(int fetchThreads) {
+            this.fetchThreads = fetchThreads;
+            return this;
+        }
+
+        /**
+         * Run fetches on a new virtual thread each instead of the fetch thread pool when the JDK supports it, i.e.
+         * 21 or later.  Ignored on older JDKs.  Defaults to false.
+         */
+        public Builder withVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Run the fetches of each registered source on a thread of its own, released when idle, instead of the shared
+         * fetch thread pool.  A slow source then only delays its own polls, at the cost of a thread per source that
+         * is polled more often than the idle timeout.  Ignored when fetches run on virtual threads.  Defaults to true.
+         */
+        public Builder withFetchThreadPerSource(boolean fetchThreadPerSource) {
+            this.fetchThreadPerSource = fetchThreadPerSource;
+            return this;
+        }
+
+        public PollingScheduler build() {
+            if (schedulerThreads <= 0 || fetchThreads <= 0) {
+                throw new IllegalArgumentException("Thread counts must be > 0");
+            }
+            return new PollingScheduler(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Polling task run by the scheduler
+     */
+    public interface Task {
+        /**
+         * Poll the source once
+         * @return Delay in milliseconds until the next poll
+         */
+        long poll() throws Exception;
+
+        /**
+         * Called when {@link #poll()} failed
+         * @return Delay in milliseconds until the next attempt
+         */
+        long onError(Exception e);
+    }
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ExecutorService fetcher;
+    private final boolean virtualThreads;
+    private final boolean fetchThreadPerSource;
+    private final Set<Registration> registrations = ConcurrentHashMap.newKeySet();
+
+    private PollingScheduler(Builder builder) {
+        this.scheduler = new ScheduledThreadPoolExecutor(builder.schedulerThreads,
+                ThreadFactories.newNamedDaemonThreadFactory("Archaius-Poller-%d"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+
+        ExecutorService virtual = builder.virtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+        if (virtual != null) {
+            this.fetcher = virtual;
+            this.virtualThreads = true;
+            this.fetchThreadPerSource = false;
+        } else {
+            this.fetcher = newFetchPool(builder.fetchThreads, "Archaius-Poller-Fetch-%d");
+            this.virtualThreads = false;
+            this.fetchThreadPerSource = builder.fetchThreadPerSource;
+        }
+    }
+
+    private static ExecutorService newFetchPool(int threads, String nameFormat) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                ThreadFactories.newNamedDaemonThreadFactory(nameFormat));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOG.info("Virtual threads are not supported by this JDK, polling on platform threads");
+            return null;
+        }
+    }
+
+    /**
+     * @return True if fetches run on virtual threads
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return True if the fetches of each source run on a thread of its own
+     */
+    public boolean isUsingFetchThreadPerSource() {
+        return fetchThreadPerSource;
+    }
+
+    /**
+     * Register a task to be polled until the returned registration is cancelled
+     *
+     * @param name Name of the polled source, used for logging and metrics
+     * @param initialDelay Delay until the first poll
+     */
+    public Registration schedule(String name, Task task, long initialDelay, TimeUnit units) {
+        return schedule(name, task, fetchThreadPerSource, initialDelay, units);
+    }
+
+    private Registration schedule(String name, Task task, boolean ownThread, long initialDelay, TimeUnit units) {
+        Registration registration = new Registration(name, task, ownThread && !virtualThreads);
+        registrations.add(registration);
+        registration.scheduleNext(units.toMillis(initialDelay));
+        return registration;
+    }
+
+    /**
+     * Register a runnable to be run with a fixed delay between the end of a run and the start of the next one,
+     * like {@link java.util.concurrent.ScheduledExecutorService#scheduleWithFixedDelay}.  Failures are logged and
+     * don't stop subsequent runs.  The runnable never shares the fetch thread pool with polled sources, so that it
+     * isn't delayed by sources that are slow to respond.
+     */
+    public Registration scheduleWithFixedDelay(String name, Runnable runnable, long initialDelay, long delay, TimeUnit units) {
+        final long delayMillis = units.toMillis(delay);
+        return schedule(name, new Task() {
+            @Override
+            public long poll() {
+                runnable.run();
+                return delayMillis;
+            }
+
+            @Override
+            public long onError(Exception e) {
+                LOG.warn("Failed to run {}", name, e);
+                return delayMillis;
+            }
+        }, true, initialDelay, units);
+    }
+
+    /**
+     * @return Registrations that haven't been cancelled yet
+     */
+    public Collection<Registration> getRegistrations() {
+        return Collections.unmodifiableCollection(new ArrayList<>(registrations));
+    }
+
+    /**
+     * Cancel all registrations and stop the threads.  Should not be called on {@link #getDefault()}.
+     */
+    public void shutdown() {
+        for (Registration registration : getRegistrations()) {
+            registration.cancel(false);
+        }
+        scheduler.shutdown();
+        fetcher.shutdown();
+    }
+
+    /**
+     * Handle to a registered task.  Cancelling it stops any subsequent poll, a poll that already started is allowed
+     * to complete.  The registration is also stopped when its task fails with an Error, or when
+     * {@link Task#onError(Exception)} fails, in which case {@link #get()} throws the failure.
+     */
+    public final class Registration implements Future<Void> {
+        private final String name;
+        private final Task task;
+        private final PollingMetrics metrics = new PollingMetrics();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final ExecutorService executor;
+        private volatile Future<?> pending;
+
+        private Registration(String name, Task task, boolean ownThread) {
+            this.name = name;
+            this.task = task;
+            this.executor = ownThread
+                    ? newFetchPool(1, "Archaius-Poller-Fetch-" + name.replace("%", "%%") + "-%d")
+                    : fetcher;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public PollingMetrics getMetrics() {
+            return metrics;
+        }
+
+        private void scheduleNext(long delayMillis) {
+            if (done.isDone()) {
+                return;
+            }
+            final long dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            try {
+                pending = scheduler.schedule(() -> dispatch(dueNanos), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Scheduler was shut down
+                cancel(false);
+            }
+        }
+
+        private void dispatch(long dueNanos) {
+            if (done.isDone()) {
+                return;
+            }
+            try {
+                executor.execute(() -> run(dueNanos));
+            } catch (RejectedExecutionException e) {
+                cancel(false);
+            }
+        }
+
+        private void run(long dueNanos) {
+            if (done.isDone()) {
+                return;
+            }
+            long start = System.nanoTime();
+            long delay;
+            try {
+                delay = task.poll();
+                metrics.recordPoll(start - dueNanos, System.nanoTime() - start, false);
+            } catch (Exception e) {
+                metrics.recordPoll(start - dueNanos, System.nanoTime() - start, true);
+                try {
+                    delay = task.onError(e);
+                } catch (Throwable t) {
+                    stop(t);
+                    return;
+                }
+            } catch (Throwable t) {
+                metrics.recordPoll(start - dueNanos, System.nanoTime() - start, true);
+                stop(t);
+                return;
+            }
+            scheduleNext(delay);
+        }
+
+        /**
+         * Stop polling after an unexpected failure, which would otherwise leave the registration registered without
+         * ever being scheduled again
+         */
+        private void stop(Throwable t) {
+            LOG.error("Stopped polling {}", name, t);
+            done.completeExceptionally(t);
+            cancel(false);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            registrations.remove(this);
+            boolean cancelled = done.cancel(false);
+            Future<?> pending = this.pending;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            if (executor != fetcher) {
+                executor.shutdown();
+            }
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return done.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.isDone();
+        }
+
+        @Override
+        public Void get() throws InterruptedException, ExecutionException {
+            return done.get();
+        }
+
+        @Override
+        public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return done.get(timeout, unit);
+        }
+
+        @Override
+        public String toString() {
+            return "Registration[" + name + ", " + metrics + "]";
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.config.polling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local copy of the last successful {@link PollingResponse} of a remote source, so that a
+ * {@link com.netflix.archaius.config.PollingDynamicConfig} can start with the last known good properties when the
+ * source is slow or unavailable.
+ *
+ * The snapshot is a single binary file holding the property names, values and ids followed by a CRC32 of the
+ * content.  It is replaced atomically on save, and a file that is truncated, corrupt or of an unknown format is
+ * ignored on load.
+ */
+public class PollingSnapshotStore {
+    private static final Logger LOG = LoggerFactory.getLogger(PollingSnapshotStore.class);
+
+    private static final int MAGIC = 0x41525350;  // "ARSP"
+    private static final int VERSION = 1;
+    private static final int NULL_LENGTH = -1;
+
+    private final Path file;
+
+    public PollingSnapshotStore(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return The last saved snapshot, or null if there is none or it can't be read
+     */
+    public PollingResponse load() {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warn("Unable to read config snapshot {}", file, e);
+            return null;
+        }
+
+        try {
+            return decode(content);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            LOG.warn("Ignoring invalid config snapshot {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replace the snapshot with the provided properties and ids
+     */
+    public void save(Map<String, String> values, Map<String, String> ids) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, encode(values, ids));
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static byte[] encode(Map<String, String> values, Map<String, String> ids) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + values.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(values.size());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+            writeString(out, ids.get(entry.getKey()));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        out.writeLong(crc.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static PollingResponse decode(byte[] content) {
+        if (content.length < 3 * Integer.BYTES + Long.BYTES) {
+            throw new IllegalArgumentException("Truncated snapshot");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length - Long.BYTES);
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (buffer.getLong(content.length - Long.BYTES) != crc.getValue()) {
+            throw new IllegalArgumentException("Checksum mismatch");
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException("Unknown snapshot format");
+        }
+
+        int count = buffer.getInt();
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid property count " + count);
+        }
+        Map<String, String> values = new HashMap<>();
+        Map<String, String> ids = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String key = readString(buffer);
+            values.put(key, readString(buffer));
+            String id = readString(buffer);
+            if (id != null) {
+                ids.put(key, id);
+            }
+        }
+        return PollingResponse.forSnapshot(values, ids);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
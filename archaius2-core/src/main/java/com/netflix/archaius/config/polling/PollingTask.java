@@ -0,0 +1,45 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.config.polling;
+
+/**
+ * Runnable passed to a {@link com.netflix.archaius.api.config.PollingStrategy} by a polling config which also
+ * reports what the poll found, so that strategies such as {@link AdaptivePollingStrategy} can adapt to it.  Other
+ * strategies simply run it.
+ */
+@FunctionalInterface
+public interface PollingTask extends Runnable {
+    enum Result {
+        /** The source returned data that changed at least one property */
+        CHANGED,
+        /** The source returned data identical to the current properties */
+        UNCHANGED,
+        /** The source returned no data, i.e. {@link PollingResponse#noop()} */
+        NO_DATA
+    }
+
+    /**
+     * Poll the source once
+     * @return What the poll found
+     * @throws RuntimeException if the poll failed
+     */
+    Result poll();
+
+    @Override
+    default void run() {
+        poll();
+    }
+}
@@ -27,6 +27,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -96,12 +97,12 @@ public final class DefaultTypeConverterFactory implements TypeConverter.Factory
     public Optional<TypeConverter<?>> get(Type type, TypeConverter.Registry registry) {
         Objects.requireNonNull(type, "type == null");
         Objects.requireNonNull(registry, "registry == null");
-        for (Map.Entry<Type, TypeConverter<?>> entry : converters.entrySet()) {
-            if (entry.getKey().equals(type)) {
-                return Optional.of(entry.getValue());
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(converters.get(type));
+    }
+
+    /** @return All types this factory has a converter for */
+    public Set<Type> getTypes() {
+        return converters.keySet();
     }
 
     /** A collection of lenient number parsers that allow whitespace and trailing 'L' or 'l' in long values */
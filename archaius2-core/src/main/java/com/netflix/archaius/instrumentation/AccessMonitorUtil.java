@@ -1,42 +1,66 @@
 package com.netflix.archaius.instrumentation;
 
 import com.netflix.archaius.api.PropertyDetails;
+import com.netflix.archaius.config.polling.PollingScheduler;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
-/** Tracks property usage data and flushes the data periodically to a sink. */
+/**
+ * Tracks property usage data and flushes the data periodically to a sink.
+ *
+ * Stack traces of the reads are recorded when enabled, for all properties or for the tracked properties only.
+ * Capturing a trace is expensive, so for production use the reads can be sampled with a rate per property and a
+ * global budget of traces per second.  Traces are aggregated by call site in fixed size tables.
+ *
+ * Reads are also counted per property key, and each flush reports the most read keys.
+ */
 public class AccessMonitorUtil implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(AccessMonitorUtil.class);
 
     // Map from property id to property usage data
     private final AtomicReference<ConcurrentHashMap<String, PropertyUsageData>> propertyUsageMapRef;
+    // Map from property key to number of reads since the last flush
+    private final AtomicReference<ConcurrentHashMap<String, LongAdder>> accessCountsRef;
+    // Number of most read keys reported on flush, counting is disabled if 0
+    private final int hotPropertyCount;
 
-    // Map from stack trace to how many times that stack trace appeared
-    private final ConcurrentHashMap<String, Integer> stackTrace;
+    // How many times each stack trace appeared
+    private final StackTraceTable stackTrace;
     // Property keys that we will keep the stack traces for
     private volatile Set<String> propertiesToTrack;
-    // Map from property key to stack traces map for tracked properties
-    private final ConcurrentHashMap<String, Set<String>> trackedPropertyStackTraces;
+    // Stack traces for tracked properties, by property key
+    private final ConcurrentHashMap<String, StackTraceTable> trackedPropertyStackTraces;
 
-    private static final AtomicInteger counter = new AtomicInteger();
+    // Sampling of stack traces
+    private final double stackTraceSampleRate;
+    private final Map<String, Double> stackTraceSampleRates;
+    private final int maxStackTracesPerSecond;
+    private final int maxStackDepth;
+    private final int trackedPropertyTableSize;
+    private final AtomicLong budgetSecond = new AtomicLong();
+    private final AtomicInteger budgetUsed = new AtomicInteger();
 
-    private final ScheduledExecutorService executor;
+    private final PollingScheduler scheduler;
+    private volatile Future<?> flushing;
 
     private final Consumer<PropertiesInstrumentationData> dataFlushConsumer;
     private final boolean recordStackTrace;
@@ -47,6 +71,14 @@ public class AccessMonitorUtil implements AutoCloseable {
         private int initialFlushDelaySeconds = 30;
         private int flushPeriodSeconds = 120;
         private Set<String> propertiesToTrack = Collections.emptySet();
+        private PollingScheduler scheduler = null;
+        private double stackTraceSampleRate = 1.0;
+        private Map<String, Double> stackTraceSampleRates = new HashMap<>();
+        private int maxStackTracesPerSecond = 0;
+        private int maxStackDepth = 64;
+        private int stackTraceTableSize = 1024;
+        private int trackedPropertyTableSize = 64;
+        private int hotPropertyCount = 0;
 
         public Builder setDataFlushConsumer(Consumer<PropertiesInstrumentationData> dataFlushConsumer) {
             this.dataFlushConsumer = dataFlushConsumer;
@@ -73,9 +105,68 @@ public class AccessMonitorUtil implements AutoCloseable {
             return this;
         }
 
+        /** Scheduler running the periodic flushes.  Defaults to {@link PollingScheduler#getDefault()}. */
+        public Builder setScheduler(PollingScheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Fraction of the reads of a property for which the stack trace is recorded.  Defaults to 1, i.e. all reads.
+         */
+        public Builder setStackTraceSampleRate(double sampleRate) {
+            this.stackTraceSampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Fraction of the reads of the given property for which the stack trace is recorded, instead of the default
+         * rate set by {@link #setStackTraceSampleRate(double)}.
+         */
+        public Builder setStackTraceSampleRate(String key, double sampleRate) {
+            this.stackTraceSampleRates.put(key, sampleRate);
+            return this;
+        }
+
+        /**
+         * Max number of stack traces recorded per second across all properties, after sampling.  Defaults to 0,
+         * meaning no limit.
+         */
+        public Builder setMaxStackTracesPerSecond(int maxStackTracesPerSecond) {
+            this.maxStackTracesPerSecond = maxStackTracesPerSecond;
+            return this;
+        }
+
+        /** Max number of frames of each recorded stack trace.  Defaults to 64. */
+        public Builder setMaxStackDepth(int maxStackDepth) {
+            this.maxStackDepth = maxStackDepth;
+            return this;
+        }
+
+        /**
+         * Max number of distinct stack traces kept when recording all stack traces, and for each tracked property.
+         * Occurrences of additional traces are only counted as dropped.  Default to 1024 and 64.
+         */
+        public Builder setStackTraceTableSizes(int stackTraceTableSize, int trackedPropertyTableSize) {
+            this.stackTraceTableSize = stackTraceTableSize;
+            this.trackedPropertyTableSize = trackedPropertyTableSize;
+            return this;
+        }
+
+        /**
+         * Number of most read property keys reported in each flush.  Counting reads adds an update of a shared counter
+         * to every instrumented read, so it is disabled by default, i.e. 0.
+         */
+        public Builder setHotPropertyCount(int hotPropertyCount) {
+            this.hotPropertyCount = hotPropertyCount;
+            return this;
+        }
+
         public AccessMonitorUtil build() {
-            AccessMonitorUtil accessMonitorUtil =
-                    new AccessMonitorUtil(dataFlushConsumer, recordStackTrace, propertiesToTrack);
+            if (scheduler == null) {
+                scheduler = PollingScheduler.getDefault();
+            }
+            AccessMonitorUtil accessMonitorUtil = new AccessMonitorUtil(this);
             accessMonitorUtil.startFlushing(initialFlushDelaySeconds, flushPeriodSeconds);
             return accessMonitorUtil;
         }
@@ -85,45 +176,52 @@ public class AccessMonitorUtil implements AutoCloseable {
         return new Builder();
     }
 
-    private AccessMonitorUtil(
-            Consumer<PropertiesInstrumentationData> dataFlushConsumer,
-            boolean recordStackTrace,
-            Set<String> propertiesToTrack) {
+    private AccessMonitorUtil(Builder builder) {
         this.propertyUsageMapRef = new AtomicReference(new ConcurrentHashMap<>());
-        this.stackTrace = new ConcurrentHashMap<>();
-        this.dataFlushConsumer = dataFlushConsumer;
-        this.recordStackTrace = recordStackTrace;
-        this.propertiesToTrack = propertiesToTrack;
+        this.accessCountsRef = new AtomicReference<>(new ConcurrentHashMap<>());
+        this.hotPropertyCount = builder.hotPropertyCount;
+        this.stackTrace = new StackTraceTable(builder.stackTraceTableSize);
+        this.dataFlushConsumer = builder.dataFlushConsumer;
+        this.recordStackTrace = builder.recordStackTrace;
+        this.propertiesToTrack = builder.propertiesToTrack;
         this.trackedPropertyStackTraces = new ConcurrentHashMap<>();
-        this.executor = Executors.newSingleThreadScheduledExecutor(
-                runnable -> {
-                    Thread thread = Executors.defaultThreadFactory().newThread(runnable);
-                    thread.setDaemon(true);
-                    thread.setName(String.format("Archaius-Instrumentation-Flusher-%d", counter.incrementAndGet()));
-                    return thread;
-                });
+        this.scheduler = builder.scheduler;
+        this.stackTraceSampleRate = builder.stackTraceSampleRate;
+        this.stackTraceSampleRates = new HashMap<>(builder.stackTraceSampleRates);
+        this.maxStackTracesPerSecond = builder.maxStackTracesPerSecond;
+        this.maxStackDepth = builder.maxStackDepth;
+        this.trackedPropertyTableSize = builder.trackedPropertyTableSize;
     }
 
     public void setPropertiesToTrack(Set<String> propertiesToTrack) {
         this.propertiesToTrack = propertiesToTrack;
     }
 
+    /**
+     * @return Stack traces recorded for each tracked property
+     */
     public Map<String, Set<String>> getTrackedPropertyTraces() {
-        return trackedPropertyStackTraces;
+        Map<String, Set<String>> traces = new HashMap<>();
+        trackedPropertyStackTraces.forEach((key, table) -> traces.put(key, table.toMap().keySet()));
+        return Collections.unmodifiableMap(traces);
     }
 
     private void startFlushing(int initialDelay, int period) {
         if (flushingEnabled()) {
             LOG.info("Starting flushing property usage data in {} seconds and then every {} seconds after.",
                     initialDelay, period);
-            executor.scheduleWithFixedDelay(this::flushUsageData, initialDelay, period, TimeUnit.SECONDS);
+            flushing = scheduler.scheduleWithFixedDelay("Archaius-Instrumentation-Flusher",
+                    this::flushUsageData, initialDelay, period, TimeUnit.SECONDS);
         }
     }
 
     private void flushUsageData() {
         try {
             if (flushingEnabled()) {
-                dataFlushConsumer.accept(new PropertiesInstrumentationData(getAndClearUsageMap()));
+                dataFlushConsumer.accept(new PropertiesInstrumentationData(
+                        getAndClearUsageMap(),
+                        new HashMap<>(),
+                        getHotProperties(accessCountsRef.getAndSet(new ConcurrentHashMap<>()))));
             }
         } catch (Exception e) {
             LOG.warn("Failed to flush property instrumentation data", e);
@@ -136,46 +234,103 @@ public class AccessMonitorUtil implements AutoCloseable {
         for (Map.Entry<String, PropertyUsageData> entry : accessMonitorUtil.propertyUsageMapRef.get().entrySet()) {
             myMap.putIfAbsent(entry.getKey(), entry.getValue());
         }
-        for (Map.Entry<String, Integer> entry : accessMonitorUtil.stackTrace.entrySet()) {
-            stackTrace.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        for (Map.Entry<String, LongAdder> entry : accessMonitorUtil.accessCountsRef.get().entrySet()) {
+            getAccessCounter(entry.getKey()).add(entry.getValue().sum());
         }
-        for (Map.Entry<String, Set<String>> entry : accessMonitorUtil.trackedPropertyStackTraces.entrySet()) {
-            trackedPropertyStackTraces.merge(
-                    entry.getKey(),
-                    entry.getValue(),
-                    (oldSet, newSet) -> {
-                         oldSet.addAll(newSet);
-                         return oldSet;
-                    });
+        stackTrace.addAll(accessMonitorUtil.stackTrace);
+        for (Map.Entry<String, StackTraceTable> entry : accessMonitorUtil.trackedPropertyStackTraces.entrySet()) {
+            getTrackedPropertyTable(entry.getKey()).addAll(entry.getValue());
         }
     }
 
     public void registerUsage(PropertyDetails propertyDetails) {
-        // Initially, we limit the number of events we keep to one event per property id per flush.
-        propertyUsageMapRef.get().putIfAbsent(
-                propertyDetails.getId(),
-                new PropertyUsageData(createEventList(new PropertyUsageEvent(System.currentTimeMillis()))));
+        // Initially, we limit the number of events we keep to one event per property id per flush.  Check for the id
+        // first so that only the first usage within a flush allocates the event.
+        Map<String, PropertyUsageData> usageMap = propertyUsageMapRef.get();
+        if (!usageMap.containsKey(propertyDetails.getId())) {
+            usageMap.putIfAbsent(
+                    propertyDetails.getId(),
+                    new PropertyUsageData(createEventList(new PropertyUsageEvent(System.currentTimeMillis()))));
+        }
+
+        if (hotPropertyCount > 0) {
+            getAccessCounter(propertyDetails.getKey()).increment();
+        }
 
-        boolean isTrackedProperty = propertiesToTrack.contains(propertyDetails.getKey());
-        if (recordStackTrace || isTrackedProperty) {
-            String trace = Arrays.toString(Thread.currentThread().getStackTrace());
+        Set<String> propertiesToTrack = this.propertiesToTrack;
+        boolean isTrackedProperty = !propertiesToTrack.isEmpty() && propertiesToTrack.contains(propertyDetails.getKey());
+        if ((recordStackTrace || isTrackedProperty) && sampleStackTrace(propertyDetails.getKey())) {
+            StackTraceElement[] trace = StackTraces.capture(maxStackDepth);
 
-            // Very crude and will have a very noticeable performance impact, but is
+            // Will have a noticeable performance impact unless sampled, but is
             // particularly useful for finding out call sites that iterate over all
             // properties.
             if (recordStackTrace) {
-                stackTrace.merge(trace, 1, (v1, v2) -> v1 + 1);
+                stackTrace.add(trace);
             }
             if (isTrackedProperty) {
-                String key = propertyDetails.getKey();
-                if (!trackedPropertyStackTraces.containsKey(key)) {
-                    trackedPropertyStackTraces.put(key, ConcurrentHashMap.newKeySet());
-                }
-                trackedPropertyStackTraces.get(key).add(trace);
+                getTrackedPropertyTable(propertyDetails.getKey()).add(trace);
             }
         }
     }
 
+    /**
+     * @return True if the stack trace of this read of the property should be recorded
+     */
+    private boolean sampleStackTrace(String key) {
+        double rate = stackTraceSampleRates.isEmpty()
+                ? stackTraceSampleRate
+                : stackTraceSampleRates.getOrDefault(key, stackTraceSampleRate);
+        if (rate < 1.0 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            return false;
+        }
+        if (maxStackTracesPerSecond <= 0) {
+            return true;
+        }
+
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long current = budgetSecond.get();
+        if (second != current && budgetSecond.compareAndSet(current, second)) {
+            budgetUsed.set(0);
+        }
+        return budgetUsed.incrementAndGet() <= maxStackTracesPerSecond;
+    }
+
+    private LongAdder getAccessCounter(String key) {
+        Map<String, LongAdder> accessCounts = accessCountsRef.get();
+        LongAdder counter = accessCounts.get(key);
+        if (counter == null) {
+            counter = accessCounts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        return counter;
+    }
+
+    private List<PropertyAccessCount> getHotProperties(Map<String, LongAdder> accessCounts) {
+        // Keep the top keys in a min-heap so that only hotPropertyCount entries are ever sorted
+        Comparator<PropertyAccessCount> byCount = Comparator.comparingLong(PropertyAccessCount::getCount);
+        PriorityQueue<PropertyAccessCount> top = new PriorityQueue<>(byCount);
+        for (Map.Entry<String, LongAdder> entry : accessCounts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (top.size() < hotPropertyCount) {
+                top.add(new PropertyAccessCount(entry.getKey(), count));
+            } else if (count > top.peek().getCount()) {
+                top.poll();
+                top.add(new PropertyAccessCount(entry.getKey(), count));
+            }
+        }
+        List<PropertyAccessCount> result = new ArrayList<>(top);
+        result.sort(byCount.reversed());
+        return Collections.unmodifiableList(result);
+    }
+
+    private StackTraceTable getTrackedPropertyTable(String key) {
+        StackTraceTable table = trackedPropertyStackTraces.get(key);
+        if (table == null) {
+            table = trackedPropertyStackTraces.computeIfAbsent(key, k -> new StackTraceTable(trackedPropertyTableSize));
+        }
+        return table;
+    }
+
     private List<PropertyUsageEvent> createEventList(PropertyUsageEvent event) {
         List<PropertyUsageEvent> list = new ArrayList<>();
         list.add(event);
@@ -191,8 +346,35 @@ public class AccessMonitorUtil implements AutoCloseable {
         return Collections.unmodifiableMap(new HashMap<>(propertyUsageMapRef.get()));
     }
 
+    /**
+     * @return Number of reads of each property key since the last flush
+     */
+    public Map<String, Long> getAccessCountsImmutable() {
+        Map<String, Long> counts = new HashMap<>();
+        accessCountsRef.get().forEach((key, counter) -> counts.put(key, counter.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * @return The most read property keys since the last flush, by descending number of reads
+     */
+    public List<PropertyAccessCount> getHotPropertiesImmutable() {
+        return getHotProperties(accessCountsRef.get());
+    }
+
     public Map<String, Integer> getStackTracesImmutable() {
-        return Collections.unmodifiableMap(new HashMap<>(stackTrace));
+        return Collections.unmodifiableMap(stackTrace.toMap());
+    }
+
+    /**
+     * @return Number of sampled stack traces that weren't kept because the stack trace tables were full
+     */
+    public long getDroppedStackTraceCount() {
+        long dropped = stackTrace.getDropped();
+        for (StackTraceTable table : trackedPropertyStackTraces.values()) {
+            dropped += table.getDropped();
+        }
+        return dropped;
     }
 
     public boolean flushingEnabled() {
@@ -201,7 +383,9 @@ public class AccessMonitorUtil implements AutoCloseable {
 
     @Override
     public void close() {
-        executor.shutdown();
+        if (flushing != null) {
+            flushing.cancel(false);
+        }
         flushUsageData();
     }
 }
@@ -0,0 +1,143 @@
+package com.netflix.archaius.instrumentation;
+
+import com.netflix.archaius.api.ConfigMetrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * ConfigMetrics that keeps the metrics in memory, to be scraped locally with {@link #snapshot()} or the getters.
+ * Meant for debugging and tests rather than as a replacement for a metrics library.
+ */
+public class InMemoryConfigMetrics implements ConfigMetrics {
+    private static final class InMemoryTimer implements Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        @Override
+        public void record(long duration, TimeUnit units) {
+            long nanos = units.toNanos(duration);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    private static final class InMemoryCounter implements Counter {
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void increment(long amount) {
+            count.add(amount);
+        }
+    }
+
+    private static final class InMemoryGauge implements Gauge {
+        private final AtomicLong value = new AtomicLong();
+
+        @Override
+        public void set(long value) {
+            this.value.set(value);
+        }
+    }
+
+    /** Metrics of one type by name and then by source */
+    private static final class Registry<T> {
+        private final ConcurrentHashMap<String, ConcurrentHashMap<String, T>> metrics = new ConcurrentHashMap<>();
+        private final Supplier<T> factory;
+
+        Registry(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        T getOrCreate(String name, String source) {
+            return metrics.computeIfAbsent(name, n -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(source, s -> factory.get());
+        }
+
+        T get(String name, String source) {
+            ConcurrentHashMap<String, T> bySource = metrics.get(name);
+            return bySource == null ? null : bySource.get(source);
+        }
+
+        void forEach(BiConsumer<String, T> consumer) {
+            metrics.forEach((name, bySource) ->
+                    bySource.forEach((source, metric) -> consumer.accept(name + "[" + source + "]", metric)));
+        }
+    }
+
+    private final Registry<InMemoryTimer> timers = new Registry<>(InMemoryTimer::new);
+    private final Registry<InMemoryCounter> counters = new Registry<>(InMemoryCounter::new);
+    private final Registry<InMemoryGauge> gauges = new Registry<>(InMemoryGauge::new);
+
+    @Override
+    public Timer timer(String name, String source) {
+        return timers.getOrCreate(name, source);
+    }
+
+    @Override
+    public Counter counter(String name, String source) {
+        return counters.getOrCreate(name, source);
+    }
+
+    @Override
+    public Gauge gauge(String name, String source) {
+        return gauges.getOrCreate(name, source);
+    }
+
+    /** @return Number of times the timer was recorded, or 0 if it never was */
+    public long getTimerCount(String name, String source) {
+        InMemoryTimer timer = timers.get(name, source);
+        return timer == null ? 0 : timer.count.sum();
+    }
+
+    public long getTimerTotal(String name, String source, TimeUnit units) {
+        InMemoryTimer timer = timers.get(name, source);
+        return timer == null ? 0 : units.convert(timer.totalNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getTimerMax(String name, String source, TimeUnit units) {
+        InMemoryTimer timer = timers.get(name, source);
+        return timer == null ? 0 : units.convert(timer.maxNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /** @return Value of the counter, or 0 if it was never incremented */
+    public long getCount(String name, String source) {
+        InMemoryCounter counter = counters.get(name, source);
+        return counter == null ? 0 : counter.count.sum();
+    }
+
+    /** @return Last value of the gauge, or null if it was never set */
+    public Long getGauge(String name, String source) {
+        InMemoryGauge gauge = gauges.get(name, source);
+        return gauge == null ? null : gauge.value.get();
+    }
+
+    /**
+     * @return All metrics sorted by name, keyed as name[source].  Timers are flattened into name[source].count,
+     * name[source].totalNanos and name[source].maxNanos.
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        timers.forEach((key, timer) -> {
+            snapshot.put(key + ".count", timer.count.sum());
+            snapshot.put(key + ".totalNanos", timer.totalNanos.sum());
+            snapshot.put(key + ".maxNanos", timer.maxNanos.get());
+        });
+        counters.forEach((key, counter) -> snapshot.put(key, counter.count.sum()));
+        gauges.forEach((key, gauge) -> snapshot.put(key, gauge.value.get()));
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryConfigMetrics" + snapshot();
+    }
+}
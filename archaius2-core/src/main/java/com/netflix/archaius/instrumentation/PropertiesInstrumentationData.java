@@ -1,20 +1,31 @@
 package com.netflix.archaius.instrumentation;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /** Instrumentation data snapshot for usages captured since the last flush. */
 public class PropertiesInstrumentationData {
     private final Map<String, PropertyUsageData> idToUsageDataMap;
     private final Map<String, String> scopes;
+    private final List<PropertyAccessCount> hotProperties;
 
     public PropertiesInstrumentationData(Map<String, PropertyUsageData> idToUsageDataMap) {
         this(idToUsageDataMap, new HashMap<>());
     }
 
     public PropertiesInstrumentationData(Map<String, PropertyUsageData> idToUsageDataMap, Map<String, String> scopes) {
+        this(idToUsageDataMap, scopes, Collections.emptyList());
+    }
+
+    public PropertiesInstrumentationData(
+            Map<String, PropertyUsageData> idToUsageDataMap,
+            Map<String, String> scopes,
+            List<PropertyAccessCount> hotProperties) {
         this.idToUsageDataMap = idToUsageDataMap;
         this.scopes = scopes;
+        this.hotProperties = hotProperties;
     }
 
     public Map<String, PropertyUsageData> getIdToUsageDataMap() {
@@ -24,4 +35,13 @@ public class PropertiesInstrumentationData {
     public Map<String, String> getScopes() {
         return scopes;
     }
+
+    /**
+     * @return The most read property keys since the last flush, by descending number of reads.  Properties that
+     *  are read this often are better accessed through a cached {@link com.netflix.archaius.api.Property}.  Empty
+     *  unless enabled with {@link AccessMonitorUtil.Builder#setHotPropertyCount(int)}.
+     */
+    public List<PropertyAccessCount> getHotProperties() {
+        return hotProperties;
+    }
 }
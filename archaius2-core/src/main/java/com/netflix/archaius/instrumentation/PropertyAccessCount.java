@@ -0,0 +1,25 @@
+package com.netflix.archaius.instrumentation;
+
+/** Number of reads of a property key in a flush cycle. */
+public class PropertyAccessCount {
+    private final String key;
+    private final long count;
+
+    public PropertyAccessCount(String key, long count) {
+        this.key = key;
+        this.count = count;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + count;
+    }
+}
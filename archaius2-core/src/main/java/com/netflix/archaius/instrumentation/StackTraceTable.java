@@ -0,0 +1,93 @@
+package com.netflix.archaius.instrumentation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed size table counting occurrences of stack traces, keyed by the hash of their frames.  Slots are claimed with
+ * a CAS and probed linearly for a bounded number of steps, so adding a trace that was seen before doesn't allocate or
+ * lock.  Once a trace can't find a slot it is only counted as dropped.  Traces are rendered to strings when the
+ * table is read rather than when they are captured.
+ */
+final class StackTraceTable {
+    private static final int MAX_PROBES = 8;
+
+    private static final class Slot {
+        final long hash;
+        final StackTraceElement[] frames;
+        final LongAdder count = new LongAdder();
+
+        Slot(long hash, StackTraceElement[] frames) {
+            this.hash = hash;
+            this.frames = frames;
+        }
+    }
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final int mask;
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param size Max number of distinct traces, rounded up to a power of two
+     */
+    StackTraceTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    void add(StackTraceElement[] frames) {
+        add(StackTraces.hash(frames), frames, 1);
+    }
+
+    private void add(long hash, StackTraceElement[] frames, long count) {
+        int index = (int) hash;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int i = (index + probe) & mask;
+            Slot slot = slots.get(i);
+            if (slot == null) {
+                Slot created = new Slot(hash, frames);
+                slot = slots.compareAndSet(i, null, created) ? created : slots.get(i);
+            }
+            if (slot.hash == hash) {
+                slot.count.add(count);
+                return;
+            }
+        }
+        dropped.add(count);
+    }
+
+    void addAll(StackTraceTable other) {
+        for (int i = 0; i < other.slots.length(); i++) {
+            Slot slot = other.slots.get(i);
+            if (slot != null) {
+                add(slot.hash, slot.frames, slot.count.sum());
+            }
+        }
+        dropped.add(other.dropped.sum());
+    }
+
+    /**
+     * @return Number of traces that weren't counted because the table was full
+     */
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return Count of each trace, rendered the same way as {@link Arrays#toString(Object[])}
+     */
+    Map<String, Integer> toMap() {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null) {
+                map.merge(Arrays.toString(slot.frames), (int) Math.min(Integer.MAX_VALUE, slot.count.sum()), Integer::sum);
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,101 @@
+package com.netflix.archaius.instrumentation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Captures the stack of the calling thread up to a maximum depth, leaving out the frames of this package.  Uses
+ * StackWalker when running on JDK 9 or later so that only the captured frames are materialized, and falls back to
+ * {@link Thread#getStackTrace()} otherwise.
+ */
+final class StackTraces {
+    private static final String PACKAGE_PREFIX = StackTraces.class.getPackage().getName() + ".";
+
+    /** StackWalker.walk bound to a StackWalker instance, or null if not available */
+    private static final MethodHandle WALK;
+    /** StackWalker.StackFrame.toStackTraceElement */
+    private static final MethodHandle TO_STACK_TRACE_ELEMENT;
+
+    static {
+        MethodHandle walk = null;
+        MethodHandle toStackTraceElement = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+            Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+            Object walker = walkerClass.getMethod("getInstance").invoke(null);
+            walk = lookup.findVirtual(walkerClass, "walk", MethodType.methodType(Object.class, Function.class))
+                    .bindTo(walker);
+            toStackTraceElement = lookup.findVirtual(frameClass, "toStackTraceElement",
+                    MethodType.methodType(StackTraceElement.class));
+        } catch (ReflectiveOperationException e) {
+            // Not available before JDK 9
+        }
+        WALK = walk;
+        TO_STACK_TRACE_ELEMENT = toStackTraceElement;
+    }
+
+    private StackTraces() {}
+
+    static StackTraceElement[] capture(int maxDepth) {
+        if (WALK != null) {
+            try {
+                return (StackTraceElement[]) WALK.invoke((Function<Stream<Object>, StackTraceElement[]>) frames -> {
+                    StackTraceElement[] captured = new StackTraceElement[maxDepth];
+                    int depth = 0;
+                    Iterator<Object> iter = frames.iterator();
+                    while (iter.hasNext() && depth < maxDepth) {
+                        StackTraceElement element = toStackTraceElement(iter.next());
+                        if (depth > 0 || !element.getClassName().startsWith(PACKAGE_PREFIX)) {
+                            captured[depth++] = element;
+                        }
+                    }
+                    return depth == maxDepth ? captured : Arrays.copyOf(captured, depth);
+                });
+            } catch (Throwable t) {
+                // Fall back to the full stack trace
+            }
+        }
+
+        StackTraceElement[] elements = Thread.currentThread().getStackTrace();
+        // Skip Thread.getStackTrace itself and the frames of this package
+        int start = 1;
+        while (start < elements.length && elements[start].getClassName().startsWith(PACKAGE_PREFIX)) {
+            start++;
+        }
+        return Arrays.copyOfRange(elements, start, Math.min(elements.length, start + maxDepth));
+    }
+
+    private static StackTraceElement toStackTraceElement(Object frame) {
+        try {
+            return (StackTraceElement) TO_STACK_TRACE_ELEMENT.invoke(frame);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * @return Hash of the class, method and line of each frame, so that traces with the same call sites have the
+     *  same hash regardless of the identity of the elements
+     */
+    static long hash(StackTraceElement[] frames) {
+        long hash = frames.length;
+        for (StackTraceElement frame : frames) {
+            hash = 31 * hash + frame.getClassName().hashCode();
+            hash = 31 * hash + frame.getMethodName().hashCode();
+            hash = 31 * hash + frame.getLineNumber();
+        }
+        // Finalizer of MurmurHash3 so that all bits of the hash are usable as a table index
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,351 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.interpolate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.netflix.archaius.api.StrInterpolator;
+
+/**
+ * StrInterpolator with the same syntax and results as {@link CommonsStrInterpolator}: ${name} references,
+ * ${name:default} defaults, references nested in names and defaults, $${name} escapes and an
+ * IllegalStateException on circular references.
+ * <p>
+ * Instead of scanning the value character by character on every resolve, each distinct value is parsed once
+ * into a list of literal and reference segments which is cached by content, up to a bounded number of values.  Resolving is then a walk over the
+ * segments doing lookups.  Values without any reference are returned as is without allocating.
+ */
+public final class CompiledStrInterpolator implements StrInterpolator {
+    public static final CompiledStrInterpolator INSTANCE = new CompiledStrInterpolator();
+
+    private static final String PREFIX = "${";
+    private static final char SUFFIX = '}';
+    private static final char ESCAPE = '$';
+    private static final char VALUE_DELIMITER = ':';
+
+    /**
+     * Upper bound on cached templates, as resolve may also be called with arbitrary strings that are not config values.
+     * Once exceeded, the templates not used since the previous eviction are dropped.
+     */
+    private static final int MAX_CACHED_TEMPLATES = 10_000;
+
+    private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<>();
+
+    private CompiledStrInterpolator() {
+    }
+
+    /**
+     * Callers resolving many values over the same lookup should keep the returned context instead of creating one
+     * per value.
+     */
+    @Override
+    public Context create(final Lookup lookup) {
+        return new CompiledContext(lookup);
+    }
+
+    private final class CompiledContext implements Context {
+        private final Lookup lookup;
+
+        CompiledContext(Lookup lookup) {
+            this.lookup = lookup;
+        }
+
+        @Override
+        public String resolve(String value) {
+            try {
+                return CompiledStrInterpolator.this.resolve(value, lookup, null);
+            } catch (UnsupportedTemplateException e) {
+                return CommonsStrInterpolator.INSTANCE.create(lookup).resolve(value);
+            }
+        }
+    }
+
+    private String resolve(String value, Lookup lookup, Frame stack) {
+        if (value == null || value.indexOf(PREFIX) < 0) {
+            return value;
+        }
+        return template(value).resolve(lookup, stack);
+    }
+
+    private Template template(String value) {
+        Template template = templates.get(value);
+        if (template == null) {
+            template = Template.parse(value);
+            Template previous = templates.putIfAbsent(value, template);
+            if (previous != null) {
+                template = previous;
+            } else if (templates.size() > MAX_CACHED_TEMPLATES) {
+                evict();
+            }
+        }
+        if (!template.used) {
+            template.used = true;
+        }
+        return template;
+    }
+
+    /**
+     * Second chance eviction approximating least recently used, without any bookkeeping on a cache hit besides
+     * setting a flag once: templates not used since the previous eviction are dropped, and the others are kept but
+     * marked unused.  If all of them were used, arbitrary ones are dropped to make room for a quarter of the limit.
+     */
+    private synchronized void evict() {
+        if (templates.size() <= MAX_CACHED_TEMPLATES) {
+            return;
+        }
+        templates.values().removeIf(template -> {
+            if (template.used) {
+                template.used = false;
+                return false;
+            }
+            return true;
+        });
+        Iterator<Template> iterator = templates.values().iterator();
+        while (templates.size() > MAX_CACHED_TEMPLATES * 3 / 4 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Thrown while resolving when the result depends on the resolved values in a way the parsed segments don't
+     * capture, i.e. a value ending with the escape character right before another reference.  The value is then
+     * resolved with {@link CommonsStrInterpolator}.
+     */
+    private static final class UnsupportedTemplateException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        static final UnsupportedTemplateException INSTANCE = new UnsupportedTemplateException();
+
+        private UnsupportedTemplateException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** Names of the references currently being resolved, used to detect circular references */
+    private static final class Frame {
+        final String name;
+        final Frame parent;
+
+        Frame(String name, Frame parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        static void checkCyclicReference(String name, Frame stack) {
+            for (Frame frame = stack; frame != null; frame = frame.parent) {
+                if (frame.name.equals(name)) {
+                    StringBuilder chain = new StringBuilder(name);
+                    for (Frame f = stack; f != null; f = f.parent) {
+                        chain.insert(0, "->").insert(0, f.name);
+                    }
+                    throw new IllegalStateException("Infinite loop in property interpolation: " + chain);
+                }
+            }
+        }
+    }
+
+    private interface Segment {
+        /** True if the text this segment was parsed from starts with ${ */
+        boolean startsWithPrefix();
+
+        void appendTo(StringBuilder sb, Lookup lookup, Frame stack);
+    }
+
+    private static final class Literal implements Segment {
+        final String text;
+        final boolean startsWithPrefix;
+
+        Literal(String text, boolean startsWithPrefix) {
+            this.text = text;
+            this.startsWithPrefix = startsWithPrefix;
+        }
+
+        @Override
+        public boolean startsWithPrefix() {
+            return startsWithPrefix;
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, Lookup lookup, Frame stack) {
+            sb.append(text);
+        }
+    }
+
+    private static final class Reference implements Segment {
+        /** Original text of the reference, kept as is if it can't be resolved */
+        final String text;
+
+        /** Everything between ${ and }, which may itself contain references */
+        final String expression;
+        final boolean dynamicExpression;
+
+        /** Name and default, split at parse time unless the expression contains references */
+        final String name;
+        final String defaultValue;
+
+        Reference(String text, String expression) {
+            this.text = text;
+            this.expression = expression;
+            this.dynamicExpression = expression.contains(PREFIX);
+            if (dynamicExpression) {
+                this.name = null;
+                this.defaultValue = null;
+            } else {
+                int delimiter = expression.indexOf(VALUE_DELIMITER);
+                this.name = delimiter < 0 ? expression : expression.substring(0, delimiter);
+                this.defaultValue = delimiter < 0 ? null : expression.substring(delimiter + 1);
+            }
+        }
+
+        @Override
+        public boolean startsWithPrefix() {
+            return true;
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, Lookup lookup, Frame stack) {
+            String resolved = resolve(lookup, stack);
+            sb.append(resolved != null ? resolved : text);
+        }
+
+        /** @return The resolved value, or null if neither the name nor a default resolve to a value */
+        String resolve(Lookup lookup, Frame stack) {
+            String name = this.name;
+            String defaultValue = this.defaultValue;
+            if (dynamicExpression) {
+                // References in the expression are resolved on their own, without regard for the current stack
+                String resolvedExpression = INSTANCE.resolve(expression, lookup, null);
+                int delimiter = resolvedExpression.indexOf(VALUE_DELIMITER);
+                name = delimiter < 0 ? resolvedExpression : resolvedExpression.substring(0, delimiter);
+                defaultValue = delimiter < 0 ? null : resolvedExpression.substring(delimiter + 1);
+            }
+
+            Frame.checkCyclicReference(name, stack);
+
+            String value = lookup.lookup(name);
+            if (value == null) {
+                value = defaultValue;
+            }
+            if (value == null) {
+                return null;
+            }
+            return INSTANCE.resolve(value, lookup, new Frame(name, stack));
+        }
+    }
+
+    private static final class Template {
+        private final Segment[] segments;
+
+        /** Set when the template is used, and cleared by {@link #evict()} */
+        volatile boolean used;
+
+        private Template(List<Segment> segments) {
+            this.segments = segments.toArray(new Segment[0]);
+        }
+
+        String resolve(Lookup lookup, Frame stack) {
+            if (segments.length == 1 && segments[0] instanceof Reference) {
+                Reference reference = (Reference) segments[0];
+                String resolved = reference.resolve(lookup, stack);
+                return resolved != null ? resolved : reference.text;
+            }
+
+            StringBuilder sb = new StringBuilder();
+            boolean previousWasReference = false;
+            for (Segment segment : segments) {
+                if (previousWasReference
+                        && segment.startsWithPrefix()
+                        && sb.length() > 0
+                        && sb.charAt(sb.length() - 1) == ESCAPE) {
+                    // The resolved value would escape the following reference
+                    throw UnsupportedTemplateException.INSTANCE;
+                }
+                segment.appendTo(sb, lookup, stack);
+                previousWasReference = segment instanceof Reference;
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Split value into segments the same way StrSubstitutor scans it: ${ preceded by the escape character is
+         * taken literally, and a ${ without a matching } makes the rest of the value literal.
+         */
+        static Template parse(String value) {
+            List<Segment> segments = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int literalStart = 0;
+            int length = value.length();
+            int pos = 0;
+            while (pos < length) {
+                if (!value.startsWith(PREFIX, pos)) {
+                    literal.append(value.charAt(pos++));
+                    continue;
+                }
+
+                if (pos > 0 && value.charAt(pos - 1) == ESCAPE) {
+                    // Escaped: drop the escape character and keep the prefix as text
+                    literal.setLength(literal.length() - 1);
+                    literal.append(ESCAPE);
+                    pos++;
+                    continue;
+                }
+
+                int end = findSuffix(value, pos + PREFIX.length());
+                if (end < 0) {
+                    literal.append(value, pos, length);
+                    break;
+                }
+
+                if (literal.length() > 0) {
+                    segments.add(new Literal(literal.toString(), value.startsWith(PREFIX, literalStart)));
+                    literal.setLength(0);
+                }
+                segments.add(new Reference(value.substring(pos, end + 1), value.substring(pos + PREFIX.length(), end)));
+                pos = end + 1;
+                literalStart = pos;
+            }
+            if (literal.length() > 0) {
+                segments.add(new Literal(literal.toString(), value.startsWith(PREFIX, literalStart)));
+            }
+            return new Template(segments);
+        }
+
+        /** Find the } closing a reference, skipping over nested references */
+        private static int findSuffix(String value, int pos) {
+            int nested = 0;
+            while (pos < value.length()) {
+                if (value.startsWith(PREFIX, pos)) {
+                    nested++;
+                    pos += PREFIX.length();
+                } else if (value.charAt(pos) == SUFFIX) {
+                    if (nested == 0) {
+                        return pos;
+                    }
+                    nested--;
+                    pos++;
+                } else {
+                    pos++;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package com.netflix.archaius;
 
+import com.netflix.archaius.api.ArchaiusType;
 import com.netflix.archaius.api.TypeConverter;
+import com.netflix.archaius.config.MapConfig;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CustomDecoderTest {
 
@@ -31,4 +37,53 @@ public class CustomDecoderTest {
         // default converter is used
         assertEquals(Integer.valueOf(3), decoder.decode((Type) Integer.class, "3"));
     }
+
+    @Test
+    public void testWarmUp() {
+        AtomicInteger calls = new AtomicInteger();
+        TypeConverter.Factory factory = (type, registry) -> {
+            calls.incrementAndGet();
+            return Optional.empty();
+        };
+        CustomDecoder decoder = CustomDecoder.create(Collections.singletonList(factory));
+        Type listOfLongs = ArchaiusType.forListOf(Long.class);
+
+        decoder.warmUp(Arrays.asList(Integer.class, listOfLongs, Object.class));
+        // Long is resolved for the list's element type
+        assertEquals(4, calls.get());
+
+        // Cached by the warm up
+        assertEquals(Integer.valueOf(3), decoder.decode((Type) Integer.class, "3"));
+        assertEquals(Arrays.asList(1L, 2L), decoder.decode(listOfLongs, "1,2"));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void testWarmUpProxyConverters() {
+        AtomicInteger calls = new AtomicInteger();
+        TypeConverter.Factory factory = (type, registry) -> {
+            calls.incrementAndGet();
+            return Optional.empty();
+        };
+        CustomDecoder decoder = CustomDecoder.create(Collections.singletonList(factory));
+        MapConfig config = MapConfig.builder().put("value", "5").put("values", "1,2").build();
+        config.setDecoder(decoder);
+
+        ConfigProxyFactory proxyFactory = new ConfigProxyFactory(config, decoder, DefaultPropertyFactory.from(config));
+        WarmUpConfig proxy = proxyFactory.newProxy(WarmUpConfig.class);
+        proxyFactory.warmUpConverters();
+        int resolved = calls.get();
+        assertTrue(resolved >= 3);
+
+        assertEquals(5, proxy.getValue());
+        assertEquals(Arrays.asList(1, 2), proxy.getValues());
+        assertEquals(resolved, calls.get());
+    }
+
+    public interface WarmUpConfig {
+        int getValue();
+
+        List<Integer> getValues();
+    }
 }
+
@@ -4,11 +4,13 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -294,6 +296,31 @@ public class ProxyFactoryTest {
         assertEquals("default", withArgs.getPropertyWithoutPrefix("a", 2));
     }
 
+    @Test
+    public void testWithArgumentsRepeatedCalls() {
+        SettableConfig config = new DefaultSettableConfig();
+        config.setProperty("a.abc.1", "value1");
+
+        PropertyFactory factory = DefaultPropertyFactory.from(config);
+        ConfigProxyFactory proxy = new ConfigProxyFactory(config, config.getDecoder(), factory);
+        WithArguments withArgs = proxy.newProxy(WithArguments.class);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("value1",  withArgs.getProperty("a", 1));
+            assertEquals("default", withArgs.getProperty("a", i + 2));
+        }
+
+        // Cached properties still pick up changes
+        config.setProperty("a.abc.1", "value2");
+        config.setProperty("a.abc.2", "value3");
+        assertEquals("value2", withArgs.getProperty("a", 1));
+        assertEquals("value3", withArgs.getProperty("a", 2));
+
+        // Null arguments are not interpolated
+        config.setProperty("${0}.abc.1", "value4");
+        assertEquals("value4", withArgs.getProperty(null, 1));
+    }
+
 
     @SuppressWarnings("unused")
     public interface WithArgumentsAndDefaultMethod {
@@ -650,4 +677,66 @@ public class ProxyFactoryTest {
         assertEquals(5, proxy.intValue());
         assertEquals("BLAH", proxy.customValue().value());
     }
+
+    @Test
+    public void testGeneratedProxyClass() {
+        SettableConfig config = new DefaultSettableConfig();
+        config.setProperty(ConfigProxyFactory.GENERATE_PROXY_CLASSES, true);
+        config.setProperty("prefix.integer", 1);
+        config.setProperty("prefix.subConfig.str", "str2");
+        config.setProperty("prefix.intArray", "0,1,2,3");
+
+        PropertyFactory factory = DefaultPropertyFactory.from(config);
+        ConfigProxyFactory proxy = new ConfigProxyFactory(config, config.getDecoder(), factory);
+
+        RootConfig a = proxy.newProxy(RootConfig.class, "prefix");
+        assertFalse(Proxy.isProxyClass(a.getClass()));
+
+        assertThat(a.getStr(),                          equalTo("default"));
+        assertThat(a.getInteger(),                      equalTo(1));
+        assertThat(a.getEnum(),                         equalTo(TestEnum.NONE));
+        assertThat(a.getSubConfig().str(),              equalTo("str2"));
+        assertThat(a.getBaseBoolean(),                  nullValue());
+        assertThat(a.getIntArray(),                     equalTo(new Integer[]{0,1,2,3}));
+        assertThat(a.getLongValueWithDefault(),         equalTo(42L));
+        assertThrows(NullPointerException.class, a::getRequiredValue);
+
+        config.setProperty("prefix.integer", 2);
+        config.setProperty("prefix.subConfig.str", "str3");
+        assertThat(a.getInteger(),                      equalTo(2));
+        assertThat(a.getSubConfig().str(),              equalTo("str3"));
+
+        assertTrue(a.toString().startsWith("RootConfig["));
+        assertEquals(a, a);
+    }
+
+    @Test
+    public void testGeneratedProxyClassWithArguments() {
+        SettableConfig config = new DefaultSettableConfig();
+        config.setProperty(ConfigProxyFactory.GENERATE_PROXY_CLASSES, true);
+        config.setProperty("a.abc.1", "value1");
+        config.setProperty("a.def.1", "v1,v2");
+
+        PropertyFactory factory = DefaultPropertyFactory.from(config);
+        ConfigProxyFactory proxy = new ConfigProxyFactory(config, config.getDecoder(), factory);
+        WithArguments withArgs = proxy.newProxy(WithArguments.class);
+        assertFalse(Proxy.isProxyClass(withArgs.getClass()));
+
+        assertEquals("value1",  withArgs.getProperty("a", 1));
+        assertEquals("default", withArgs.getProperty("a", 2));
+        assertEquals(Arrays.asList("v1", "v2"), withArgs.getListWithDefault("a", 1));
+        assertEquals(Collections.singletonList("a2"), withArgs.getListWithDefault("a", 2));
+    }
+
+    @Test
+    public void testGeneratedProxyClassFallsBackForNonPublicInterface() {
+        SettableConfig config = new DefaultSettableConfig();
+        config.setProperty(ConfigProxyFactory.GENERATE_PROXY_CLASSES, true);
+        config.setProperty("intValue", 5);
+
+        ConfigProxyFactory proxy = new ConfigProxyFactory(config, config.getDecoder(), DefaultPropertyFactory.from(config));
+        ConfigWithNestedInterface c = proxy.newProxy(ConfigWithNestedInterface.class);
+        assertTrue(Proxy.isProxyClass(c.getClass()));
+        assertEquals(5, c.intValue());
+    }
 }
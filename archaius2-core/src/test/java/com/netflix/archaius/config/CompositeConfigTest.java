@@ -17,16 +17,25 @@ package com.netflix.archaius.config;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.netflix.archaius.api.Config;
+import com.netflix.archaius.api.Decoder;
 import com.netflix.archaius.api.config.SettableConfig;
 import com.netflix.archaius.api.config.CompositeConfig;
 import com.netflix.archaius.config.polling.ManualPollingStrategy;
@@ -37,6 +46,7 @@ import com.netflix.archaius.api.PropertyDetails;
 import com.netflix.archaius.DefaultConfigLoader;
 import com.netflix.archaius.cascade.ConcatCascadeStrategy;
 import com.netflix.archaius.api.exceptions.ConfigException;
+import com.netflix.archaius.visitor.FlattenedNamesVisitor;
 import com.netflix.archaius.visitor.PrintStreamVisitor;
 import org.junit.jupiter.api.Test;
 
@@ -44,6 +54,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -310,6 +321,166 @@ public class CompositeConfigTest {
         verify(accessMonitorUtil, times(1)).registerUsage(any());
     }
 
+    @Test
+    public void keyedUpdateOnlyResolvesChangedKeys() throws ConfigException {
+        SettableConfig override = new DefaultSettableConfig();
+        SettableConfig base = new DefaultSettableConfig();
+        base.setProperty("a", "base-a");
+        base.setProperty("b", "base-b");
+
+        CompositeConfig config = DefaultCompositeConfig.builder()
+                .withConfig("override", override)
+                .withConfig("base", base)
+                .build();
+
+        override.setProperty("a", "override-a");
+        assertEquals("override-a", config.getString("a"));
+        assertEquals("base-b", config.getString("b"));
+
+        // A lower priority child changing a key that is overridden doesn't change the winner
+        base.setProperty("a", "base-a2");
+        assertEquals("override-a", config.getString("a"));
+
+        // Clearing the override reveals the value from the lower priority child
+        override.clearProperty("a");
+        assertEquals("base-a2", config.getString("a"));
+
+        base.clearProperty("a");
+        assertFalse(config.containsKey("a"));
+        assertEquals("base-b", config.getString("b"));
+    }
+
+    @Test
+    public void keyedUpdatePropagatesThroughNestedComposites() throws ConfigException {
+        SettableConfig settable = new DefaultSettableConfig();
+        CompositeConfig inner = DefaultCompositeConfig.builder()
+                .withConfig("settable", settable)
+                .build();
+        CompositeConfig outer = DefaultCompositeConfig.builder()
+                .withConfig("inner", inner)
+                .withConfig("defaults", MapConfig.builder().put("a", "default").build())
+                .build();
+
+        assertEquals("default", outer.getString("a"));
+        settable.setProperty("a", "set");
+        assertEquals("set", outer.getString("a"));
+        settable.clearProperty("a");
+        assertEquals("default", outer.getString("a"));
+    }
+
+    @Test
+    public void keyedUpdateWithPrefixedViewChild() throws ConfigException {
+        SettableConfig settable = new DefaultSettableConfig();
+        CompositeConfig config = DefaultCompositeConfig.builder()
+                .withConfig("settable", settable)
+                .withConfig("view", settable.getPrefixedView("prefix"))
+                .build();
+
+        // The delta is reported in the key space of the settable config, the view's keys must still be updated
+        settable.setProperty("prefix.a", "value");
+        assertEquals("value", config.getString("prefix.a"));
+        assertEquals("value", config.getString("a"));
+    }
+
+    @Test
+    public void typedValuesAreDecodedOncePerState() throws ConfigException {
+        SettableConfig settable = new DefaultSettableConfig();
+        settable.setProperty("a", "1");
+        settable.setProperty("b", "${a}");
+        CompositeConfig config = DefaultCompositeConfig.builder()
+                .withConfig("settable", settable)
+                .build();
+        ((DefaultCompositeConfig) config).setTypedValueCacheEnabled(true);
+
+        Decoder decoder = spy(config.getDecoder());
+        config.setDecoder(decoder);
+
+        assertEquals(1, config.getInteger("a").intValue());
+        assertEquals(1, config.getInteger("a").intValue());
+        assertEquals(1L, config.getLong("a").longValue());
+        verify(decoder, times(1)).decode(eq((Type) Integer.class), eq("1"));
+        verify(decoder, times(1)).decode(eq((Type) Long.class), eq("1"));
+
+        // Interpolated values depend on other properties and are decoded on every read
+        assertEquals(1, config.getInteger("b").intValue());
+        assertEquals(1, config.getInteger("b").intValue());
+        verify(decoder, times(3)).decode(eq((Type) Integer.class), eq("1"));
+
+        settable.setProperty("a", "2");
+        assertEquals(2, config.getInteger("a").intValue());
+        assertEquals(2, config.getInteger("b").intValue());
+    }
+
+    @Test
+    public void concurrentKeyedUpdatesAreNotLost() throws Exception {
+        SettableConfig first = new DefaultSettableConfig();
+        SettableConfig second = new DefaultSettableConfig();
+        CompositeConfig config = DefaultCompositeConfig.builder()
+                .withConfig("first", first)
+                .withConfig("second", second)
+                .build();
+
+        runConcurrently(
+                () -> {
+                    for (int i = 0; i < 1000; i++) {
+                        first.setProperty("first" + i, "value");
+                    }
+                },
+                () -> {
+                    for (int i = 0; i < 1000; i++) {
+                        second.setProperty("second" + i, "value");
+                    }
+                });
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(config.containsKey("first" + i));
+            assertTrue(config.containsKey("second" + i));
+        }
+    }
+
+    @Test
+    public void nestedAddConfigDuringChildUpdatesDoesNotDeadlock() throws Exception {
+        SettableConfig settable = new DefaultSettableConfig();
+        CompositeConfig inner = DefaultCompositeConfig.builder()
+                .withConfig("settable", settable)
+                .build();
+        CompositeConfig outer = DefaultCompositeConfig.builder()
+                .withConfig("inner", inner)
+                .build();
+
+        // Visiting locks the outer and then the inner config, while adding to the inner config and updating the
+        // settable config notify the outer config from within the child's lock
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> runConcurrently(
+                () -> {
+                    for (int i = 0; i < 1000; i++) {
+                        outer.accept(new FlattenedNamesVisitor());
+                    }
+                },
+                () -> {
+                    for (int i = 0; i < 1000; i++) {
+                        addConfig(inner, "inner" + i, new DefaultSettableConfig());
+                    }
+                },
+                () -> {
+                    for (int i = 0; i < 1000; i++) {
+                        settable.setProperty("key" + i, "value");
+                    }
+                }));
+
+        assertEquals(1001, inner.getConfigNames().size());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(outer.containsKey("key" + i));
+        }
+    }
+
+    private static void addConfig(CompositeConfig config, String name, Config child) {
+        try {
+            config.addConfig(name, child);
+        } catch (ConfigException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private PollingDynamicConfig createPollingDynamicConfig(
             String key1, String value1, String key2, String value2, AccessMonitorUtil accessMonitorUtil) throws Exception {
         ManualPollingStrategy strategy = new ManualPollingStrategy();
@@ -324,4 +495,25 @@ public class CompositeConfigTest {
         strategy.fire();
         return config;
     }
+
+    private static void runConcurrently(Runnable... tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.length);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
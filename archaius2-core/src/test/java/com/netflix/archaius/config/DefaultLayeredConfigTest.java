@@ -2,9 +2,12 @@ package com.netflix.archaius.config;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.netflix.archaius.DefaultPropertyFactory;
 import com.netflix.archaius.Layers;
 import com.netflix.archaius.api.Config;
 import com.netflix.archaius.api.ConfigListener;
+import com.netflix.archaius.api.ConfigMetrics;
+import com.netflix.archaius.api.Property;
 import com.netflix.archaius.api.PropertyDetails;
 import com.netflix.archaius.api.config.LayeredConfig;
 import com.netflix.archaius.api.config.SettableConfig;
@@ -12,17 +15,24 @@ import com.netflix.archaius.api.config.SettableConfig;
 import com.netflix.archaius.config.polling.ManualPollingStrategy;
 import com.netflix.archaius.config.polling.PollingResponse;
 import com.netflix.archaius.instrumentation.AccessMonitorUtil;
+import com.netflix.archaius.instrumentation.InMemoryConfigMetrics;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -92,6 +102,27 @@ public class DefaultLayeredConfigTest {
         Mockito.verify(listener, Mockito.times(2)).onConfigUpdated(any());
     }
     
+    @Test
+    public void validateKeyedPropertyUpdates() {
+        SettableConfig runtime = new DefaultSettableConfig();
+        SettableConfig application = new DefaultSettableConfig();
+        application.setProperty("propname", "app");
+
+        LayeredConfig config = new DefaultLayeredConfig();
+        config.addConfig(Layers.RUNTIME, runtime);
+        config.addConfig(Layers.APPLICATION, application);
+        assertEquals("app", config.getRawProperty("propname"));
+
+        runtime.setProperty("propname", "runtime");
+        assertEquals("runtime", config.getRawProperty("propname"));
+
+        application.setProperty("propname", "app2");
+        assertEquals("runtime", config.getRawProperty("propname"));
+
+        runtime.clearProperty("propname");
+        assertEquals("app2", config.getRawProperty("propname"));
+    }
+
     @Test
     public void validateApiWhenRemovingChild() {
         // Setup main config
@@ -322,6 +353,102 @@ public class DefaultLayeredConfigTest {
         verify(accessMonitorUtil, times(6)).registerUsage((any()));
     }
 
+    @Test
+    public void batchUpdateNotifiesOnce() {
+        SettableConfig runtime = new DefaultSettableConfig();
+        runtime.setProperty("removed", "value");
+        SettableConfig app = new DefaultSettableConfig();
+        app.setProperty("removed", "app");
+
+        LayeredConfig config = new DefaultLayeredConfig();
+        config.addConfig(Layers.RUNTIME, runtime);
+        config.addConfig(Layers.APPLICATION, app);
+
+        ConfigListener listener = Mockito.mock(ConfigListener.class);
+        config.addListener(listener);
+
+        runtime.update(mutator -> {
+            for (int i = 0; i < 500; i++) {
+                mutator.setProperty("key" + i, "value" + i);
+            }
+            mutator.clearProperty("removed");
+            mutator.clearProperty("missing");
+        });
+
+        Mockito.verify(listener, Mockito.times(1)).onConfigUpdated(any());
+        assertEquals("value499", config.getString("key499"));
+        assertEquals("app", config.getString("removed"));
+
+        // Nothing is applied when the batch fails
+        assertThrows(IllegalStateException.class, () -> runtime.update(mutator -> {
+            mutator.setProperty("key0", "changed");
+            throw new IllegalStateException();
+        }));
+        Mockito.verify(listener, Mockito.times(1)).onConfigUpdated(any());
+        assertEquals("value0", config.getString("key0"));
+
+        // An empty batch is not an update
+        runtime.update(mutator -> mutator.clearProperty("missing"));
+        Mockito.verify(listener, Mockito.times(1)).onConfigUpdated(any());
+    }
+
+    @Test
+    public void testMetrics() {
+        InMemoryConfigMetrics metrics = new InMemoryConfigMetrics();
+        DefaultLayeredConfig config = new DefaultLayeredConfig("app");
+        config.setMetrics(metrics);
+        DefaultPropertyFactory factory = new DefaultPropertyFactory(config);
+        factory.setMetrics(metrics);
+        Property<String> property = factory.getProperty("foo").asString("default");
+        property.subscribe(value -> {});
+
+        SettableConfig runtime = new DefaultSettableConfig();
+        config.addConfig(Layers.RUNTIME, runtime);
+        assertEquals(1, metrics.getTimerCount(ConfigMetrics.CONFIG_REBUILD, "app"));
+
+        runtime.setProperty("foo", "bar");
+        assertEquals("bar", property.get());
+        // Updates of a single key only re-resolve that key
+        assertEquals(1, metrics.getTimerCount(ConfigMetrics.CONFIG_REBUILD, "app"));
+        assertEquals(1, metrics.getTimerCount(ConfigMetrics.CONFIG_PARTIAL_REBUILD, "app"));
+        assertEquals(2, metrics.getCount(ConfigMetrics.PROPERTY_INVALIDATIONS, "app"));
+        assertEquals(2, metrics.getTimerCount(ConfigMetrics.PROPERTY_FAN_OUT, "app"));
+        assertEquals(Long.valueOf(1), metrics.getGauge(ConfigMetrics.PROPERTY_LISTENERS, "app"));
+
+        // Metrics of configs sharing the same ConfigMetrics are reported separately
+        DefaultLayeredConfig other = new DefaultLayeredConfig("other");
+        other.setMetrics(metrics);
+        other.addConfig(Layers.RUNTIME, new DefaultSettableConfig());
+        assertEquals(1, metrics.getTimerCount(ConfigMetrics.CONFIG_REBUILD, "app"));
+        assertEquals(1, metrics.getTimerCount(ConfigMetrics.CONFIG_REBUILD, "other"));
+    }
+
+    @Test
+    public void concurrentKeyedUpdatesAreNotLost() throws Exception {
+        DefaultLayeredConfig config = new DefaultLayeredConfig();
+        SettableConfig runtime = new DefaultSettableConfig();
+        SettableConfig application = new DefaultSettableConfig();
+        config.addConfig(Layers.RUNTIME, runtime);
+        config.addConfig(Layers.APPLICATION, application);
+
+        runConcurrently(
+                () -> {
+                    for (int i = 0; i < 1000; i++) {
+                        runtime.setProperty("runtime" + i, "value");
+                    }
+                },
+                () -> {
+                    for (int i = 0; i < 1000; i++) {
+                        application.setProperty("application" + i, "value");
+                    }
+                });
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(config.containsKey("runtime" + i));
+            assertTrue(config.containsKey("application" + i));
+        }
+    }
+
     private PollingDynamicConfig createPollingDynamicConfig(
             String key1, String value1, String key2, String value2, AccessMonitorUtil accessMonitorUtil) throws Exception {
         ManualPollingStrategy strategy = new ManualPollingStrategy();
@@ -336,4 +463,25 @@ public class DefaultLayeredConfigTest {
         strategy.fire();
         return config;
     }
+
+    private static void runConcurrently(Runnable... tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.length);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -11,6 +11,7 @@ import java.util.Properties;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DefaultSettableConfigTest {
 
@@ -112,4 +113,33 @@ public class DefaultSettableConfigTest {
         assertThrows(UnsupportedOperationException.class, config.keys().iterator()::remove);
         assertThrows(UnsupportedOperationException.class, ((Collection<String>) config.keys())::clear);
     }
+
+    @Test
+    public void testStructuralSharing() {
+        SettableConfig config = new DefaultSettableConfig("settable", true);
+
+        assertTrue(config.isEmpty());
+
+        for (int i = 0; i < 1000; i++) {
+            config.setProperty("prop" + i, "value" + i);
+        }
+        config.setProperty("prop0", "updated");
+        config.clearProperty("prop1");
+        config.clearProperty("missing");
+
+        assertEquals(999, Iterables.size(config.keys()));
+        assertEquals("updated", config.getString("prop0"));
+        assertFalse(config.containsKey("prop1"));
+        assertEquals("value999", config.getString("prop999"));
+
+        config.setProperties(MapConfig.builder().put("prop2", "fromConfig").build());
+        Properties props = new Properties();
+        props.put("prop3", "fromProperties");
+        config.setProperties(props);
+        assertEquals("fromConfig", config.getString("prop2"));
+        assertEquals("fromProperties", config.getString("prop3"));
+
+        assertThrows(UnsupportedOperationException.class, config.keys().iterator()::remove);
+        assertThrows(UnsupportedOperationException.class, ((Collection<String>) config.keys())::clear);
+    }
 }
@@ -1,11 +1,17 @@
 package com.netflix.archaius.config;
 
 import com.netflix.archaius.api.Config;
+import com.netflix.archaius.api.StrInterpolator;
 import com.netflix.archaius.api.config.CompositeConfig;
 import com.netflix.archaius.api.exceptions.ConfigException;
+import com.netflix.archaius.interpolate.CommonsStrInterpolator;
+import com.netflix.archaius.interpolate.CompiledStrInterpolator;
 import com.netflix.archaius.visitor.PrintStreamVisitor;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -131,4 +137,47 @@ public class InterpolationTest {
         assertEquals("${c}", config.resolve("${b:${c}}"));
         
     }
+
+    @Test
+    public void escapedInterpolation() {
+        Config config = MapConfig.builder()
+                .put("a", "A")
+                .put("b", "$${a}-${a}")
+                .build();
+
+        assertEquals("${a}-A", config.getString("b"));
+    }
+
+    @Test
+    public void failOnCircularReferenceThroughValues() {
+        Config config = MapConfig.builder()
+                .put("a", "${b}")
+                .put("b", "x-${a}")
+                .build();
+
+        assertThrows(IllegalStateException.class, () -> config.getString("a"));
+    }
+
+    @Test
+    public void compiledInterpolatorMatchesCommonsInterpolator() {
+        Map<String, String> values = new HashMap<>();
+        values.put("a", "A");
+        values.put("b", "${a}B");
+        values.put("c", "x$");
+        values.put("name", "a");
+        StrInterpolator.Lookup lookup = values::get;
+
+        String[] templates = {
+                "plain", "${a}", "${b}", "pre-${a}-${b}-post", "${missing}", "${missing:default}", "${missing:${a}}",
+                "${${name}}", "${a:${missing}}", "$${a}", "$$${a}", "${c}${a}", "${c}$${a}", "${a", "${a}${b",
+                "}${a}{", "${:a}", "${}", ""
+        };
+        for (String template : templates) {
+            assertEquals(
+                    CommonsStrInterpolator.INSTANCE.create(lookup).resolve(template),
+                    CompiledStrInterpolator.INSTANCE.create(lookup).resolve(template),
+                    template);
+        }
+    }
 }
+
@@ -16,20 +16,40 @@
 package com.netflix.archaius.config;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.netflix.archaius.api.ConfigMetrics;
 import com.netflix.archaius.api.PropertyDetails;
+import com.netflix.archaius.config.polling.AdaptivePollingStrategy;
+import com.netflix.archaius.config.polling.FixedPollingStrategy;
 import com.netflix.archaius.config.polling.PollingResponse;
+import com.netflix.archaius.config.polling.PollingScheduler;
+import com.netflix.archaius.config.polling.PollingSnapshotStore;
+import com.netflix.archaius.config.polling.PollingTask;
 import com.netflix.archaius.instrumentation.AccessMonitorUtil;
+import com.netflix.archaius.instrumentation.InMemoryConfigMetrics;
+import com.netflix.archaius.instrumentation.PropertiesInstrumentationData;
+import com.netflix.archaius.instrumentation.PropertyAccessCount;
+import com.netflix.archaius.instrumentation.PropertyUsageData;
 
 import com.netflix.archaius.api.Config;
 import com.netflix.archaius.config.polling.ManualPollingStrategy;
@@ -40,10 +60,13 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -343,4 +366,505 @@ public class PollingDynamicConfigTest {
         config.forEachPropertyUninstrumented((k, v) -> {});
         verify(accessMonitorUtil, times(3)).registerUsage(any());
     }
+
+    @Test
+    public void testInstrumentationReusesPropertyDetails() throws Exception {
+        ManualPollingStrategy strategy = new ManualPollingStrategy();
+        Map<String, String> props = new HashMap<>();
+        props.put("foo", "foo-value");
+        Callable<PollingResponse> reader = () ->
+                PollingResponse.forSnapshot(new HashMap<>(props), Collections.singletonMap("foo", "1"));
+        AccessMonitorUtil accessMonitorUtil = spy(AccessMonitorUtil.builder().build());
+        PollingDynamicConfig config = new PollingDynamicConfig(reader, strategy, accessMonitorUtil);
+        strategy.fire();
+
+        config.getRawProperty("foo");
+        PropertyUsageData usage = accessMonitorUtil.getUsageMapImmutable().get("1");
+        config.getRawProperty("foo");
+        config.forEachProperty((k, v) -> {});
+
+        ArgumentCaptor<PropertyDetails> details = ArgumentCaptor.forClass(PropertyDetails.class);
+        verify(accessMonitorUtil, times(3)).registerUsage(details.capture());
+        assertSame(details.getAllValues().get(0), details.getAllValues().get(1));
+        assertSame(details.getAllValues().get(0), details.getAllValues().get(2));
+        // Only the first usage within a flush is kept
+        assertSame(usage, accessMonitorUtil.getUsageMapImmutable().get("1"));
+
+        props.put("foo", "foo-value2");
+        strategy.fire();
+        config.getRawProperty("foo");
+        verify(accessMonitorUtil).registerUsage(eq(new PropertyDetails("foo", "1", "foo-value2")));
+    }
+
+    @Test
+    public void testSampledStackTraces() throws Exception {
+        ManualPollingStrategy strategy = new ManualPollingStrategy();
+        Map<String, String> props = new HashMap<>();
+        props.put("foo", "foo-value");
+        props.put("bar", "bar-value");
+        Map<String, String> ids = new HashMap<>();
+        ids.put("foo", "1");
+        ids.put("bar", "2");
+        Callable<PollingResponse> reader = () -> PollingResponse.forSnapshot(new HashMap<>(props), ids);
+        AccessMonitorUtil accessMonitorUtil = AccessMonitorUtil.builder()
+                .setRecordStackTrace(true)
+                .setMaxStackTracesPerSecond(10)
+                .setStackTraceSampleRate("bar", 0)
+                .build();
+        PollingDynamicConfig config = new PollingDynamicConfig(reader, strategy, accessMonitorUtil);
+        strategy.fire();
+
+        for (int i = 0; i < 1000; i++) {
+            config.getRawProperty("foo");
+            config.getRawProperty("bar");
+        }
+
+        // All reads of foo come from the same call site, and reads of bar are never sampled
+        Map<String, Integer> traces = accessMonitorUtil.getStackTracesImmutable();
+        assertEquals(1, traces.size());
+        String trace = traces.keySet().iterator().next();
+        assertTrue(trace.startsWith("[com.netflix.archaius.config.PollingDynamicConfig"), trace);
+        assertTrue(trace.contains("testSampledStackTraces"), trace);
+        // At most two windows of the budget if the loop ran across a second boundary
+        int count = traces.values().iterator().next();
+        assertTrue(count > 0 && count <= 20, "Unexpected count " + count);
+    }
+
+    @Test
+    public void testPollMetrics() throws Exception {
+        ManualPollingStrategy strategy = new ManualPollingStrategy();
+        AtomicBoolean fail = new AtomicBoolean();
+        Callable<PollingResponse> reader = () -> {
+            if (fail.get()) {
+                throw new IOException("unavailable");
+            }
+            return PollingResponse.forSnapshot(Collections.singletonMap("foo", "foo-value"));
+        };
+        InMemoryConfigMetrics metrics = new InMemoryConfigMetrics();
+        PollingDynamicConfig config = new PollingDynamicConfig(reader, strategy);
+        config.setMetrics(metrics);
+
+        strategy.fire();
+        fail.set(true);
+        assertThrows(Exception.class, strategy::fire);
+
+        assertEquals(2, metrics.getTimerCount(ConfigMetrics.POLL, config.getName()));
+        assertEquals(1, metrics.getCount(ConfigMetrics.POLL_ERRORS, config.getName()));
+        assertEquals(Long.valueOf(1), metrics.getGauge(ConfigMetrics.POLL_SIZE, config.getName()));
+    }
+
+    @Test
+    public void testHotProperties() throws Exception {
+        ManualPollingStrategy strategy = new ManualPollingStrategy();
+        Map<String, String> props = new HashMap<>();
+        Map<String, String> ids = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            props.put("key" + i, "value" + i);
+            ids.put("key" + i, "id" + i);
+        }
+        Callable<PollingResponse> reader = () -> PollingResponse.forSnapshot(new HashMap<>(props), ids);
+        AtomicReference<PropertiesInstrumentationData> flushed = new AtomicReference<>();
+        AccessMonitorUtil accessMonitorUtil = AccessMonitorUtil.builder()
+                .setDataFlushConsumer(flushed::set)
+                .setHotPropertyCount(2)
+                .build();
+        PollingDynamicConfig config = new PollingDynamicConfig(reader, strategy, accessMonitorUtil);
+        strategy.fire();
+
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < (i + 1) * 10; j++) {
+                config.getRawProperty("key" + i);
+            }
+        }
+        assertEquals(Long.valueOf(30), accessMonitorUtil.getAccessCountsImmutable().get("key2"));
+
+        accessMonitorUtil.close();
+        List<PropertyAccessCount> hot = flushed.get().getHotProperties();
+        assertEquals(2, hot.size());
+        assertEquals("key4", hot.get(0).getKey());
+        assertEquals(50, hot.get(0).getCount());
+        assertEquals("key3", hot.get(1).getKey());
+        assertEquals(40, hot.get(1).getCount());
+        // Counts restart after each flush
+        assertTrue(accessMonitorUtil.getAccessCountsImmutable().isEmpty());
+
+        // Reads aren't counted unless enabled
+        AccessMonitorUtil defaultMonitorUtil = AccessMonitorUtil.builder().setDataFlushConsumer(flushed::set).build();
+        ManualPollingStrategy defaultStrategy = new ManualPollingStrategy();
+        PollingDynamicConfig defaultConfig = new PollingDynamicConfig(reader, defaultStrategy, defaultMonitorUtil);
+        defaultStrategy.fire();
+        defaultConfig.getRawProperty("key0");
+        assertTrue(defaultMonitorUtil.getAccessCountsImmutable().isEmpty());
+        defaultMonitorUtil.close();
+        assertTrue(flushed.get().getHotProperties().isEmpty());
+    }
+
+    @Test
+    public void testNotificationOnlyForChangedKeys() throws Exception {
+        ManualPollingStrategy strategy = new ManualPollingStrategy();
+        Map<String, String> props = new HashMap<>();
+        props.put("foo", "foo-value");
+        props.put("bar", "bar-value");
+        Callable<PollingResponse> reader = () -> PollingResponse.forSnapshot(new HashMap<>(props));
+        PollingDynamicConfig config = new PollingDynamicConfig(reader, strategy);
+
+        AtomicInteger updateCount = new AtomicInteger();
+        Set<String> changedKeys = new HashSet<>();
+        config.addListener(new DefaultConfigListener() {
+            @Override
+            public void onConfigUpdated(Config config, Set<String> keys) {
+                updateCount.incrementAndGet();
+                changedKeys.addAll(keys);
+            }
+        });
+
+        strategy.fire();
+        assertEquals(1, updateCount.get());
+        assertEquals(Sets.newHashSet("foo", "bar"), changedKeys);
+
+        // An identical snapshot doesn't generate any notification
+        strategy.fire();
+        assertEquals(1, updateCount.get());
+
+        changedKeys.clear();
+        props.put("foo", "foo-value2");
+        props.remove("bar");
+        props.put("baz", "baz-value");
+        strategy.fire();
+        assertEquals(2, updateCount.get());
+        assertEquals(Sets.newHashSet("foo", "bar", "baz"), changedKeys);
+        assertEquals("foo-value2", config.getString("foo"));
+        assertNull(config.getString("bar", null));
+    }
+
+    @Test
+    public void testStartsFromSnapshot(@TempDir Path dir) throws Exception {
+        PollingSnapshotStore store = new PollingSnapshotStore(dir.resolve("snapshot.bin"));
+
+        Map<String, String> props = new HashMap<>();
+        props.put("foo", "foo-value");
+        props.put("bar", "bar-value");
+        Map<String, String> ids = new HashMap<>();
+        ids.put("foo", "foo-id");
+
+        ManualPollingStrategy strategy = new ManualPollingStrategy();
+        PollingDynamicConfig config = new PollingDynamicConfig(
+                () -> PollingResponse.forSnapshot(props, ids), strategy, null, store);
+        strategy.fire();
+        config.shutdown();
+        assertTrue(Files.exists(store.getFile()));
+
+        // The source is unavailable, the next config starts from the snapshot without blocking
+        ManualPollingStrategy failingStrategy = new ManualPollingStrategy();
+        PollingDynamicConfig restarted = new PollingDynamicConfig(
+                () -> { throw new IOException("unavailable"); }, failingStrategy, null, store);
+        assertEquals("foo-value", restarted.getString("foo"));
+        assertEquals("bar-value", restarted.getString("bar"));
+        assertThrows(RuntimeException.class, failingStrategy::fire);
+        assertEquals("foo-value", restarted.getString("foo"));
+        restarted.shutdown();
+    }
+
+    @Test
+    public void testDeltaReplacesIds(@TempDir Path dir) throws Exception {
+        PollingSnapshotStore store = new PollingSnapshotStore(dir.resolve("snapshot.bin"));
+
+        Map<String, String> props = new HashMap<>();
+        props.put("foo", "foo-value");
+        props.put("bar", "bar-value");
+        Map<String, String> ids = new HashMap<>();
+        ids.put("foo", "foo-id");
+        ids.put("bar", "bar-id");
+
+        AtomicReference<PollingResponse> response = new AtomicReference<>(PollingResponse.forSnapshot(props, ids));
+        ManualPollingStrategy strategy = new ManualPollingStrategy();
+        PollingDynamicConfig config = new PollingDynamicConfig(response::get, strategy, null, store);
+        strategy.fire();
+
+        AtomicInteger updateCount = new AtomicInteger();
+        config.addListener(new DefaultConfigListener() {
+            @Override
+            public void onConfigUpdated(Config config, Set<String> keys) {
+                updateCount.incrementAndGet();
+            }
+        });
+
+        // An empty delta changes nothing
+        response.set(PollingResponse.forDelta(Collections.emptyMap(), Collections.emptySet(), Collections.emptyMap()));
+        strategy.fire();
+        assertEquals(0, updateCount.get());
+
+        // The new value of foo has no id and must not keep the id of the previous value
+        response.set(PollingResponse.forDelta(
+                Collections.singletonMap("foo", "foo-value2"), Collections.emptySet(), Collections.emptyMap()));
+        strategy.fire();
+        assertEquals(1, updateCount.get());
+        assertEquals("foo-value2", config.getString("foo"));
+        config.shutdown();
+        assertEquals(Collections.singletonMap("bar", "bar-id"), store.load().getNameToIdsMap());
+    }
+
+    @Test
+    @Timeout(5)
+    public void testSnapshotIsWrittenInBackground(@TempDir Path dir) throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger saveCount = new AtomicInteger();
+        PollingSnapshotStore store = new PollingSnapshotStore(dir.resolve("snapshot.bin")) {
+            @Override
+            public void save(Map<String, String> values, Map<String, String> ids) throws IOException {
+                saveCount.incrementAndGet();
+                saving.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                super.save(values, ids);
+            }
+        };
+
+        AtomicInteger version = new AtomicInteger();
+        ManualPollingStrategy strategy = new ManualPollingStrategy();
+        Callable<PollingResponse> reader =
+                () -> PollingResponse.forSnapshot(Collections.singletonMap("foo", "foo-value" + version.incrementAndGet()));
+        PollingDynamicConfig config = new PollingDynamicConfig(reader, strategy, null, store);
+
+        // Polls complete while the first write is blocked, and their writes are merged into a single one
+        strategy.fire();
+        saving.await();
+        strategy.fire();
+        strategy.fire();
+        assertEquals("foo-value3", config.getString("foo"));
+        assertEquals(1, saveCount.get());
+
+        release.countDown();
+        config.shutdown();
+        assertEquals(2, saveCount.get());
+        assertEquals(Collections.singletonMap("foo", "foo-value3"), store.load().getToAdd());
+    }
+
+    @Test
+    public void testCorruptSnapshotIsIgnored(@TempDir Path dir) throws Exception {
+        PollingSnapshotStore store = new PollingSnapshotStore(dir.resolve("snapshot.bin"));
+        store.save(Collections.singletonMap("foo", "foo-value"), Collections.emptyMap());
+
+        byte[] content = Files.readAllBytes(store.getFile());
+        content[content.length / 2] ^= 1;
+        Files.write(store.getFile(), content);
+        assertNull(store.load());
+
+        Files.write(store.getFile(), Arrays.copyOf(content, 10));
+        assertNull(store.load());
+    }
+
+    @Test
+    @Timeout(5)
+    public void testAdaptivePollingInterval() throws Exception {
+        AdaptivePollingStrategy strategy = AdaptivePollingStrategy.builder()
+                .withMinInterval(10, TimeUnit.MILLISECONDS)
+                .withMaxInterval(80, TimeUnit.MILLISECONDS)
+                .withIdleMultiplier(2)
+                .withJitter(0)
+                .build();
+
+        AtomicReference<PollingTask.Result> result = new AtomicReference<>(PollingTask.Result.UNCHANGED);
+        AtomicInteger polls = new AtomicInteger();
+        try {
+            strategy.execute((PollingTask) () -> {
+                polls.incrementAndGet();
+                return result.get();
+            });
+            assertEquals(1, polls.get());
+            assertEquals(20, strategy.getInterval(TimeUnit.MILLISECONDS));
+
+            // Backs off while nothing changes, up to the max interval
+            while (strategy.getInterval(TimeUnit.MILLISECONDS) != 80) {
+                Thread.sleep(5);
+            }
+            assertTrue(polls.get() >= 3);
+
+            // Back to the min interval once changes are found
+            result.set(PollingTask.Result.CHANGED);
+            while (strategy.getInterval(TimeUnit.MILLISECONDS) != 10) {
+                Thread.sleep(5);
+            }
+        } finally {
+            strategy.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    public void testSharedPollingScheduler() throws Exception {
+        PollingScheduler scheduler = PollingScheduler.builder()
+                .withFetchThreads(1)
+                .withFetchThreadPerSource(false)
+                .build();
+        try {
+            FixedPollingStrategy first = new FixedPollingStrategy(5, TimeUnit.MILLISECONDS, scheduler);
+            FixedPollingStrategy second = new FixedPollingStrategy(5, TimeUnit.MILLISECONDS, scheduler);
+            first.execute(() -> {});
+            // Registrations are returned as the future of the strategy, fail every poll after the initial one
+            AtomicInteger secondPolls = new AtomicInteger();
+            PollingScheduler.Registration failing = (PollingScheduler.Registration) second.execute(() -> {
+                if (secondPolls.incrementAndGet() > 1) {
+                    throw new RuntimeException("unavailable");
+                }
+            });
+
+            assertEquals(2, scheduler.getRegistrations().size());
+            for (PollingScheduler.Registration registration : scheduler.getRegistrations()) {
+                while (registration.getMetrics().getPollCount() < 3) {
+                    Thread.sleep(5);
+                }
+            }
+            // Failures are counted but don't stop polling
+            assertTrue(failing.getMetrics().getErrorCount() >= 3);
+
+            first.shutdown();
+            assertEquals(1, scheduler.getRegistrations().size());
+        } finally {
+            scheduler.shutdown();
+        }
+        assertTrue(scheduler.getRegistrations().isEmpty());
+    }
+
+    @Test
+    @Timeout(5)
+    public void testFetchThreadPerSource() throws Exception {
+        PollingScheduler scheduler = PollingScheduler.builder().withFetchThreads(1).build();
+        assertTrue(scheduler.isUsingFetchThreadPerSource());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // A source that hangs doesn't delay the polls of other sources
+            scheduler.schedule("slow", hangingTask(release), 0, TimeUnit.MILLISECONDS);
+            PollingScheduler.Registration fast = scheduler.schedule("fast", new PollingScheduler.Task() {
+                @Override
+                public long poll() {
+                    return 5;
+                }
+
+                @Override
+                public long onError(Exception e) {
+                    return 5;
+                }
+            }, 0, TimeUnit.MILLISECONDS);
+            while (fast.getMetrics().getPollCount() < 3) {
+                Thread.sleep(5);
+            }
+        } finally {
+            release.countDown();
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    public void testFixedDelayRunnableDoesNotShareFetchPool() throws Exception {
+        PollingScheduler scheduler = PollingScheduler.builder()
+                .withFetchThreads(1)
+                .withFetchThreadPerSource(false)
+                .build();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // The only fetch thread hangs, runnables such as the usage data flush keep running
+            scheduler.schedule("slow", hangingTask(release), 0, TimeUnit.MILLISECONDS);
+            PollingScheduler.Registration flusher = scheduler.scheduleWithFixedDelay(
+                    "flusher", () -> {}, 0, 5, TimeUnit.MILLISECONDS);
+            while (flusher.getMetrics().getPollCount() < 3) {
+                Thread.sleep(5);
+            }
+        } finally {
+            release.countDown();
+            scheduler.shutdown();
+        }
+    }
+
+    private static PollingScheduler.Task hangingTask(CountDownLatch release) {
+        return new PollingScheduler.Task() {
+            @Override
+            public long poll() throws Exception {
+                release.await();
+                return 5;
+            }
+
+            @Override
+            public long onError(Exception e) {
+                return 5;
+            }
+        };
+    }
+
+    @Test
+    @Timeout(5)
+    public void testErrorStopsRegistration() throws Exception {
+        PollingScheduler scheduler = PollingScheduler.builder().build();
+        try {
+            PollingScheduler.Registration registration = scheduler.scheduleWithFixedDelay("broken", () -> {
+                throw new LinkageError("broken");
+            }, 0, 5, TimeUnit.MILLISECONDS);
+
+            ExecutionException e = assertThrows(ExecutionException.class, registration::get);
+            assertTrue(e.getCause() instanceof LinkageError);
+            assertTrue(scheduler.getRegistrations().isEmpty());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    public void testShutdownDuringInitialPoll(@TempDir Path dir) throws Exception {
+        PollingSnapshotStore store = new PollingSnapshotStore(dir.resolve("snapshot.bin"));
+        store.save(Collections.singletonMap("foo", "foo-value"), Collections.emptyMap());
+
+        PollingScheduler scheduler = PollingScheduler.builder().withFetchThreads(1).build();
+        try {
+            // The initial poll ignores the interrupt from shutdown() and succeeds
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            PollingDynamicConfig config = new PollingDynamicConfig(() -> {
+                started.countDown();
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        release.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return PollingResponse.forSnapshot(Collections.singletonMap("foo", "foo-value2"), Collections.emptyMap());
+            }, new FixedPollingStrategy(5, TimeUnit.MILLISECONDS, scheduler), null, store);
+
+            started.await();
+            config.shutdown();
+            release.countDown();
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith("Archaius-Initial-Poll-")) {
+                    thread.join();
+                }
+            }
+            assertTrue(scheduler.getRegistrations().isEmpty());
+
+            // The strategy is shut down by another thread while the initial poll is running
+            FixedPollingStrategy strategy = new FixedPollingStrategy(5, TimeUnit.MILLISECONDS, scheduler);
+            Thread shutdownThread = new Thread(strategy::shutdown);
+            strategy.execute(() -> {
+                shutdownThread.start();
+                try {
+                    shutdownThread.join();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertTrue(scheduler.getRegistrations().isEmpty());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package com.netflix.archaius.config;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.netflix.archaius.Layers;
 import com.netflix.archaius.api.Config;
 import com.netflix.archaius.api.ConfigListener;
 import com.netflix.archaius.api.PropertyDetails;
@@ -10,6 +12,7 @@ import com.netflix.archaius.api.exceptions.ConfigException;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -127,6 +130,59 @@ public class PrefixedViewTest {
         assertTrue(keySet.contains("prop2"));
     }
 
+    @Test
+    public void testPrefixIndexFollowsUpdates() {
+        DefaultLayeredConfig layered = new DefaultLayeredConfig();
+        SettableConfig settable = new DefaultSettableConfig();
+        layered.addConfig(Layers.RUNTIME, settable);
+        settable.setProperty("foo.b", "1");
+        settable.setProperty("foo.a", "2");
+        settable.setProperty("foobar", "3");
+        settable.setProperty("bar.a", "4");
+
+        Config config = layered.getPrefixedView("foo");
+        assertEquals(Sets.newHashSet("a", "b"), Sets.newHashSet(config.keys()));
+
+        // Keyed updates are merged into the index of the parent's state
+        settable.setProperty("foo.c", "5");
+        settable.clearProperty("foo.a");
+        assertEquals(Sets.newHashSet("b", "c"), Sets.newHashSet(config.keys()));
+        assertEquals("5", config.getString("c"));
+
+        @SuppressWarnings("deprecation")
+        Iterator<String> keys = layered.getKeys("foo");
+        assertEquals(Arrays.asList("foo.b", "foo.c", "foobar"), Lists.newArrayList(keys));
+    }
+
+    @Test
+    public void testLazyPrefixedView() {
+        DefaultLayeredConfig layered = new DefaultLayeredConfig();
+        layered.setLazyPrefixedViews(true);
+        SettableConfig settable = new DefaultSettableConfig();
+        layered.addConfig(Layers.RUNTIME, settable);
+        settable.setProperty("foo.a", "${other}");
+        settable.setProperty("foo.b", "1");
+        settable.setProperty("foo.nested.c", "2");
+        settable.setProperty("other", "value");
+
+        Config config = layered.getPrefixedView("foo");
+        assertTrue(config instanceof LazyPrefixedViewConfig);
+        assertEquals("value", config.getString("a"));
+        assertEquals(1, config.getInteger("b").intValue());
+        assertEquals(2, config.getPrefixedView("nested").getInteger("c").intValue());
+        assertEquals(Arrays.asList("a", "b", "nested.c"), Lists.newArrayList(config.keys()));
+
+        // Reads go to the current state of the parent, without any listener on the view
+        ConfigListener listener = Mockito.mock(ConfigListener.class);
+        config.addListener(listener);
+        settable.setProperty("foo.b", "3");
+        settable.clearProperty("foo.a");
+        Mockito.verify(listener, Mockito.times(2)).onConfigUpdated(any());
+        assertEquals(3, config.getInteger("b").intValue());
+        assertFalse(config.containsKey("a"));
+        assertEquals(Arrays.asList("b", "nested.c"), Lists.newArrayList(config.keys()));
+    }
+
     @Test
     public void testGetKeysIteratorRemoveThrows() {
         Config config = MapConfig.builder()
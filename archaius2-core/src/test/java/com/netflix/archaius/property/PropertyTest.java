@@ -34,7 +34,12 @@ import java.util.function.Function;
 import org.mockito.Mockito;
 
 import com.netflix.archaius.DefaultPropertyFactory;
+import com.netflix.archaius.api.BooleanProperty;
 import com.netflix.archaius.api.Config;
+import com.netflix.archaius.api.ConfigMetrics;
+import com.netflix.archaius.api.DoubleProperty;
+import com.netflix.archaius.api.IntProperty;
+import com.netflix.archaius.api.LongProperty;
 import com.netflix.archaius.api.Property;
 import com.netflix.archaius.api.Property.Subscription;
 import com.netflix.archaius.api.PropertyFactory;
@@ -43,14 +48,19 @@ import com.netflix.archaius.api.config.SettableConfig;
 import com.netflix.archaius.api.exceptions.ConfigException;
 import com.netflix.archaius.config.DefaultSettableConfig;
 import com.netflix.archaius.config.MapConfig;
+import com.netflix.archaius.instrumentation.InMemoryConfigMetrics;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 @SuppressWarnings("deprecation")
@@ -620,6 +630,177 @@ public class PropertyTest {
         ensureReferencesDoNotMatch(firstReference, secondReference);
     }
 
+    @Test
+    public void trackedDependenciesOnlyInvalidateAffectedProperties() {
+        SettableConfig config = new DefaultSettableConfig();
+        config.setProperty("a", "1");
+        config.setProperty("b", "2");
+        DefaultPropertyFactory factory = new DefaultPropertyFactory(config, true);
+
+        AtomicInteger bResolveCount = new AtomicInteger();
+        Property<Integer> a = factory.getProperty("a").asInteger(0);
+        Property<Integer> b = factory.getProperty("b").asType(value -> {
+            bResolveCount.incrementAndGet();
+            return Integer.valueOf(value);
+        }, "0");
+        AtomicInteger bCallbacks = new AtomicInteger();
+        b.subscribe(value -> bCallbacks.incrementAndGet());
+
+        assertEquals(1, a.get().intValue());
+        assertEquals(2, b.get().intValue());
+        int resolvedCount = bResolveCount.get();
+
+        config.setProperty("a", "10");
+        assertEquals(10, a.get().intValue());
+        assertEquals(2, b.get().intValue());
+        assertEquals(resolvedCount, bResolveCount.get());
+        assertEquals(0, bCallbacks.get());
+
+        config.setProperty("b", "20");
+        assertEquals(20, b.get().intValue());
+        assertEquals(1, bCallbacks.get());
+    }
+
+    @Test
+    public void trackedDependenciesFollowInterpolation() {
+        SettableConfig config = new DefaultSettableConfig();
+        config.setProperty("a", "${b}");
+        config.setProperty("b", "${c:default}");
+        DefaultPropertyFactory factory = new DefaultPropertyFactory(config, true);
+
+        Property<String> a = factory.getProperty("a").asString(null);
+        AtomicReference<String> current = new AtomicReference<>();
+        a.subscribe(current::set);
+        assertEquals("default", a.get());
+
+        config.setProperty("c", "value");
+        assertEquals("value", a.get());
+        assertEquals("value", current.get());
+
+        config.setProperty("b", "other");
+        assertEquals("other", a.get());
+        assertEquals("other", current.get());
+    }
+
+    @Test
+    public void trackedDependenciesOfFallbackKey() {
+        SettableConfig config = new DefaultSettableConfig();
+        DefaultPropertyFactory factory = new DefaultPropertyFactory(config, true);
+
+        Property<Integer> prop = factory.get("primary", Integer.class).orElseGet("secondary").orElse(1);
+        assertEquals(1, prop.get().intValue());
+
+        config.setProperty("secondary", 2);
+        assertEquals(2, prop.get().intValue());
+
+        config.setProperty("primary", 3);
+        assertEquals(3, prop.get().intValue());
+
+        config.clearProperty("primary");
+        assertEquals(2, prop.get().intValue());
+    }
+
+    @Test
+    public void trackedDependenciesOnlyRunAffectedListeners() {
+        SettableConfig config = new DefaultSettableConfig();
+        config.setProperty("a", "1");
+        config.setProperty("b", "${c}");
+        config.setProperty("any", "${${name}}");
+        DefaultPropertyFactory factory = new DefaultPropertyFactory(config, true);
+        InMemoryConfigMetrics metrics = new InMemoryConfigMetrics();
+        factory.setMetrics(metrics);
+
+        factory.getProperty("a").asString(null).subscribe(value -> {});
+        factory.getProperty("b").asString(null).subscribe(value -> {});
+        factory.getInt("c", 0);
+        Property<String> any = factory.getProperty("any").asString(null);
+        AtomicReference<String> anyValue = new AtomicReference<>();
+        any.subscribe(anyValue::set);
+
+        // Listeners of a, and of the property depending on any key
+        config.setProperty("a", "2");
+        assertEquals(Long.valueOf(2), metrics.getGauge(ConfigMetrics.PROPERTY_LISTENERS, config.getName()));
+
+        // Listeners of b through its reference and of c, and of the property depending on any key
+        config.setProperty("c", "3");
+        assertEquals(Long.valueOf(3), metrics.getGauge(ConfigMetrics.PROPERTY_LISTENERS, config.getName()));
+
+        // Once re-evaluated without a nested reference, the property no longer depends on any key
+        config.setProperty("any", "plain");
+        assertEquals("plain", anyValue.get());
+        long invalidations = metrics.getCount(ConfigMetrics.PROPERTY_INVALIDATIONS, config.getName());
+        config.setProperty("unrelated", "value");
+        assertEquals(invalidations, metrics.getCount(ConfigMetrics.PROPERTY_INVALIDATIONS, config.getName()));
+        config.setProperty("a", "4");
+        assertEquals(Long.valueOf(1), metrics.getGauge(ConfigMetrics.PROPERTY_LISTENERS, config.getName()));
+    }
+
+    @Test
+    public void primitiveProperties() {
+        SettableConfig config = new DefaultSettableConfig();
+        DefaultPropertyFactory factory = DefaultPropertyFactory.from(config);
+
+        IntProperty intProp = factory.getInt("int", 1);
+        LongProperty longProp = factory.getLong("long", 2L);
+        BooleanProperty booleanProp = factory.getBoolean("boolean", true);
+        DoubleProperty doubleProp = factory.getDouble("double", 3.5);
+
+        assertEquals(1, intProp.getAsInt());
+        assertEquals(2L, longProp.getAsLong());
+        assertTrue(booleanProp.getAsBoolean());
+        assertEquals(3.5, doubleProp.getAsDouble());
+
+        config.setProperty("int", "10");
+        config.setProperty("long", "20");
+        config.setProperty("boolean", "false");
+        config.setProperty("double", "30.5");
+
+        assertEquals(10, intProp.getAsInt());
+        assertEquals(Integer.valueOf(10), intProp.get());
+        assertEquals(20L, longProp.getAsLong());
+        assertFalse(booleanProp.getAsBoolean());
+        assertEquals(30.5, doubleProp.getAsDouble());
+
+        config.clearProperty("int");
+        assertEquals(1, intProp.getAsInt());
+
+        assertSame(intProp, factory.getInt("int", 1));
+        assertNotSame(intProp, factory.getInt("int", 2));
+    }
+
+    @Test
+    public void primitivePropertiesRefreshOnReadWithoutTracking() {
+        SettableConfig config = new DefaultSettableConfig();
+        DefaultPropertyFactory factory = DefaultPropertyFactory.from(config);
+        InMemoryConfigMetrics metrics = new InMemoryConfigMetrics();
+        factory.setMetrics(metrics);
+
+        IntProperty prop = factory.getInt("foo", 1);
+        config.setProperty("foo", "5");
+
+        // No listener decodes the value on the change, only the read does
+        assertEquals(Long.valueOf(0), metrics.getGauge(ConfigMetrics.PROPERTY_LISTENERS, config.getName()));
+        assertEquals(5, prop.getAsInt());
+        assertEquals(5, prop.getAsInt());
+
+        config.clearProperty("foo");
+        assertEquals(1, prop.getAsInt());
+    }
+
+    @Test
+    public void primitivePropertySubscription() {
+        SettableConfig config = new DefaultSettableConfig();
+        DefaultPropertyFactory factory = DefaultPropertyFactory.from(config);
+
+        AtomicInteger current = new AtomicInteger();
+        IntProperty prop = factory.getInt("foo", 1);
+        prop.subscribe(current::set);
+
+        config.setProperty("foo", "5");
+        assertEquals(5, current.get());
+        assertEquals(5, prop.getAsInt());
+    }
+
     private void ensureReferencesMatch(Property<?> firstReference, Property<?> secondReference) {
         ensureReferencesMatch(firstReference, secondReference, true);
     }
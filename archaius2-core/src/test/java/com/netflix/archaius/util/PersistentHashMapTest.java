@@ -0,0 +1,141 @@
+package com.netflix.archaius.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersistentHashMapTest {
+
+    /** Key whose hash code is the same for all instances, so that all keys end up in a single collision node */
+    private static final class CollidingKey {
+        final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CollidingKey && ((CollidingKey) obj).id == id;
+        }
+    }
+
+    @Test
+    public void fullHashCollisions() {
+        PersistentHashMap<CollidingKey, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 100; i++) {
+            map = map.plus(new CollidingKey(i), i);
+        }
+        assertEquals(100, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), map.get(new CollidingKey(i)));
+        }
+        assertNull(map.get(new CollidingKey(100)));
+
+        map = map.plus(new CollidingKey(5), 500);
+        assertEquals(100, map.size());
+        assertEquals(Integer.valueOf(500), map.get(new CollidingKey(5)));
+
+        for (int i = 0; i < 100; i += 2) {
+            map = map.minus(new CollidingKey(i));
+        }
+        assertEquals(50, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(new CollidingKey(i)));
+        }
+    }
+
+    @Test
+    public void removalDownToEmpty() {
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 1000; i++) {
+            map = map.plus("key" + i, i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            map = map.minus("key" + i);
+            assertEquals(999 - i, map.size());
+        }
+        assertTrue(map.isEmpty());
+        assertFalse(map.entrySet().iterator().hasNext());
+        assertEquals(PersistentHashMap.empty(), map);
+        assertSame(map, map.minus("key0"));
+
+        map = map.plus("key", 1);
+        assertEquals(1, map.size());
+        assertEquals(Integer.valueOf(1), map.get("key"));
+    }
+
+    @Test
+    public void iterationAfterRemovals() {
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            map = map.plus("key" + i, i);
+            expected.put("key" + i, i);
+        }
+        for (int i = 0; i < 2000; i += 3) {
+            map = map.minus("key" + i);
+            expected.remove("key" + i);
+        }
+
+        Map<String, Integer> iterated = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : map.entrySet()) {
+            assertNull(iterated.put(entry.getKey(), entry.getValue()));
+        }
+        assertEquals(expected, iterated);
+
+        Map<String, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    public void equalsAndHashCodeMatchHashMap() {
+        Random random = new Random(1);
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            String key = "key" + random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                map = map.minus(key);
+                expected.remove(key);
+            } else {
+                map = map.plus(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(map, PersistentHashMap.from(expected));
+    }
+
+    @Test
+    public void previousVersionsAreUnchanged() {
+        PersistentHashMap<String, Integer> first = PersistentHashMap.<String, Integer>empty().plus("a", 1).plus("b", 2);
+        PersistentHashMap<String, Integer> second = first.plus("a", 3).minus("b").plus("c", 4);
+
+        assertEquals(2, first.size());
+        assertEquals(Integer.valueOf(1), first.get("a"));
+        assertEquals(Integer.valueOf(2), first.get("b"));
+        assertNull(first.get("c"));
+        assertEquals(2, second.size());
+        assertEquals(Integer.valueOf(3), second.get("a"));
+        assertSame(second, second.plus("a", 3));
+    }
+}
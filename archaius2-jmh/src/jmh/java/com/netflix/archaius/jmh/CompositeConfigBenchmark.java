@@ -0,0 +1,101 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.jmh;
+
+import com.netflix.archaius.api.Config;
+import com.netflix.archaius.jmh.ConfigFixtures.BenchmarkSettableConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups against DefaultCompositeConfig and DefaultLayeredConfig, and the cost of rebuilding their state when a
+ * child changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CompositeConfigBenchmark {
+    @Param({"1000", "20000", "200000"})
+    int keyCount;
+
+    @Param({"1", "4", "12"})
+    int childCount;
+
+    @Param({"composite", "layered"})
+    String configType;
+
+    private BenchmarkSettableConfig settable;
+    private Config config;
+    private String[] keys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+
+        int next(int length) {
+            index = index + 1 == length ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        settable = new BenchmarkSettableConfig();
+        config = ConfigFixtures.dependentConfig(configType, settable, keyCount, childCount);
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = ConfigFixtures.key(i);
+        }
+    }
+
+    @Benchmark
+    public Object getRawProperty(Cursor cursor) {
+        return config.getRawProperty(keys[cursor.next(keys.length)]);
+    }
+
+    @Benchmark
+    public String getString(Cursor cursor) {
+        return config.getString(keys[cursor.next(keys.length)]);
+    }
+
+    @Benchmark
+    public Integer getInteger(Cursor cursor) {
+        return config.getInteger(keys[cursor.next(keys.length)]);
+    }
+
+    /** A single key update which parents can apply incrementally */
+    @Benchmark
+    public Object keyedRebuild(Cursor cursor) {
+        String key = keys[cursor.next(keys.length)];
+        settable.setProperty(key, "override");
+        return config.getRawProperty(key);
+    }
+
+    /** An update without key information, forcing a full rebuild of the parent state */
+    @Benchmark
+    public boolean fullRebuild() {
+        settable.fireFullUpdate();
+        return config.isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.jmh;
+
+import com.netflix.archaius.Layers;
+import com.netflix.archaius.api.Config;
+import com.netflix.archaius.api.Layer;
+import com.netflix.archaius.api.exceptions.ConfigException;
+import com.netflix.archaius.config.DefaultCompositeConfig;
+import com.netflix.archaius.config.DefaultLayeredConfig;
+import com.netflix.archaius.config.DefaultSettableConfig;
+import com.netflix.archaius.config.MapConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builders for the config hierarchies shared by the benchmarks.
+ */
+final class ConfigFixtures {
+    private static final Layer[] LAYERS = {
+            Layers.RUNTIME, Layers.REMOTE, Layers.SYSTEM, Layers.ENVIRONMENT,
+            Layers.APPLICATION_OVERRIDE, Layers.APPLICATION, Layers.LIBRARY, Layers.DEFAULT};
+
+    private ConfigFixtures() {
+    }
+
+    /** Settable config that can also fire an update without key information, forcing a full rebuild of parents. */
+    static final class BenchmarkSettableConfig extends DefaultSettableConfig {
+        void fireFullUpdate() {
+            notifyConfigUpdated(this);
+        }
+    }
+
+    static String key(int index) {
+        return "benchmark.property." + index + ".value";
+    }
+
+    /**
+     * Values for one of childCount children sharing keyCount keys.  Each child owns an interleaved slice of the keys,
+     * and the first 10% of the keys are present in every child so that overrides are exercised as well.
+     */
+    static Map<String, String> values(int keyCount, int childIndex, int childCount) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            if (i % childCount == childIndex || i < keyCount / 10) {
+                values.put(key(i), Integer.toString(i + childIndex));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Create a dependent config of the requested type made of an initially empty settable child with the highest
+     * priority, followed by childCount immutable children holding keyCount keys in total.
+     */
+    static Config dependentConfig(String type, BenchmarkSettableConfig settable, int keyCount, int childCount) throws ConfigException {
+        switch (type) {
+            case "composite":
+                DefaultCompositeConfig composite = new DefaultCompositeConfig();
+                composite.addConfig("settable", settable);
+                for (int i = 0; i < childCount; i++) {
+                    composite.addConfig("child-" + i, MapConfig.from(values(keyCount, i, childCount)));
+                }
+                return composite;
+            case "layered":
+                DefaultLayeredConfig layered = new DefaultLayeredConfig();
+                layered.addConfig(Layers.RUNTIME, settable);
+                for (int i = 0; i < childCount; i++) {
+                    layered.addConfig(LAYERS[i % LAYERS.length], MapConfig.from(values(keyCount, i, childCount)));
+                }
+                return layered;
+            default:
+                throw new IllegalArgumentException("Unknown config type " + type);
+        }
+    }
+}
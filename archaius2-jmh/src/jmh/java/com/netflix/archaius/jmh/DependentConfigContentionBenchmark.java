@@ -0,0 +1,110 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.jmh;
+
+import com.netflix.archaius.api.Config;
+import com.netflix.archaius.jmh.ConfigFixtures.BenchmarkSettableConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of DefaultCompositeConfig and DefaultLayeredConfig from many threads at once, with and without a concurrent
+ * writer replacing the state.  Every read goes through the volatile state of the config, so this shows the cost of
+ * that path under contention rather than the single threaded lookup cost measured by {@link CompositeConfigBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DependentConfigContentionBenchmark {
+    @Param({"20000"})
+    int keyCount;
+
+    @Param({"4"})
+    int childCount;
+
+    @Param({"composite", "layered"})
+    String configType;
+
+    private BenchmarkSettableConfig settable;
+    private Config config;
+    private String[] keys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+
+        int next(int length) {
+            index = index + 1 == length ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        settable = new BenchmarkSettableConfig();
+        config = ConfigFixtures.dependentConfig(configType, settable, keyCount, childCount);
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = ConfigFixtures.key(i);
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object getRawProperty(Cursor cursor) {
+        return config.getRawProperty(keys[cursor.next(keys.length)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean containsKey(Cursor cursor) {
+        return config.containsKey(keys[cursor.next(keys.length)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Integer getInteger(Cursor cursor) {
+        return config.getInteger(keys[cursor.next(keys.length)]);
+    }
+
+    @Benchmark
+    @Group("readWhileUpdating")
+    @GroupThreads(3)
+    public Object reader(Cursor cursor) {
+        return config.getRawProperty(keys[cursor.next(keys.length)]);
+    }
+
+    /** Keeps replacing the state of the config with key level updates while the readers run */
+    @Benchmark
+    @Group("readWhileUpdating")
+    @GroupThreads(1)
+    public Object writer(Cursor cursor) {
+        String key = keys[cursor.next(keys.length)];
+        settable.setProperty(key, "override");
+        return config.getRawPropertyUninstrumented(key);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.jmh;
+
+import com.netflix.archaius.api.Config;
+import com.netflix.archaius.config.DefaultSettableConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AbstractConfig.getString on values that are resolved through a chain of ${...} references.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InterpolationBenchmark {
+    @Param({"0", "1", "4", "16"})
+    int depth;
+
+    private Config config;
+    private String key;
+
+    @Setup
+    public void setup() {
+        DefaultSettableConfig settable = new DefaultSettableConfig();
+        // interpolated.0 -> interpolated.1 -> ... -> interpolated.<depth>, which holds the actual value
+        for (int i = 0; i < depth; i++) {
+            settable.setProperty("interpolated." + i, "prefix-${interpolated." + (i + 1) + "}");
+        }
+        settable.setProperty("interpolated." + depth, "value");
+        settable.setProperty("defaulted", "${missing:default}");
+        config = settable;
+        key = "interpolated.0";
+    }
+
+    @Benchmark
+    public String getString() {
+        return config.getString(key);
+    }
+
+    @Benchmark
+    public String getStringWithDefault() {
+        return config.getString("defaulted");
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.jmh;
+
+import com.netflix.archaius.DefaultPropertyFactory;
+import com.netflix.archaius.api.Config;
+import com.netflix.archaius.api.IntProperty;
+import com.netflix.archaius.api.Property;
+import com.netflix.archaius.jmh.ConfigFixtures.BenchmarkSettableConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of cached Property objects, and the cost of invalidating every live property on a config change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropertyBenchmark {
+    @Param({"1000", "20000", "200000"})
+    int keyCount;
+
+    @Param({"false", "true"})
+    boolean trackDependencies;
+
+    private BenchmarkSettableConfig settable;
+    private Property<Integer> property;
+    private IntProperty intProperty;
+    private Property<String> stringProperty;
+    private int updateCounter;
+
+    @Setup
+    public void setup() throws Exception {
+        settable = new BenchmarkSettableConfig();
+        Config config = ConfigFixtures.dependentConfig("layered", settable, keyCount, 4);
+        DefaultPropertyFactory factory = new DefaultPropertyFactory(config, trackDependencies);
+
+        // Every key has a live property, as would be the case in a large application
+        for (int i = 0; i < keyCount; i++) {
+            factory.get(ConfigFixtures.key(i), Integer.class).get();
+        }
+        property = factory.get(ConfigFixtures.key(0), Integer.class);
+        intProperty = factory.getInt(ConfigFixtures.key(0), 0);
+        stringProperty = factory.get(ConfigFixtures.key(1), String.class);
+    }
+
+    @Benchmark
+    public Integer propertyGet() {
+        return property.get();
+    }
+
+    @Benchmark
+    public int intPropertyGet() {
+        return intProperty.getAsInt();
+    }
+
+    @Benchmark
+    public String stringPropertyGet() {
+        return stringProperty.get();
+    }
+
+    /** Update a key no property depends on and read a property afterward */
+    @Benchmark
+    public Integer unrelatedUpdateThenGet() {
+        settable.setProperty("unrelated", updateCounter++);
+        return property.get();
+    }
+}
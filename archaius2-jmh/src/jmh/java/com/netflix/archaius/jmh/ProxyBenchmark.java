@@ -0,0 +1,86 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.archaius.jmh;
+
+import com.netflix.archaius.ConfigProxyFactory;
+import com.netflix.archaius.DefaultPropertyFactory;
+import com.netflix.archaius.api.annotations.Configuration;
+import com.netflix.archaius.api.annotations.DefaultValue;
+import com.netflix.archaius.api.annotations.PropertyName;
+import com.netflix.archaius.config.DefaultSettableConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Method invocations on proxies created by ConfigProxyFactory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProxyBenchmark {
+    @Configuration(prefix = "benchmark")
+    public interface BenchmarkConfig {
+        @DefaultValue("default")
+        String getString();
+
+        @DefaultValue("42")
+        int getInt();
+
+        @DefaultValue("true")
+        boolean isEnabled();
+
+        @PropertyName(name = "client.${0}.timeout")
+        @DefaultValue("1000")
+        int getTimeout(String client);
+    }
+
+    private BenchmarkConfig proxy;
+
+    @Setup
+    public void setup() {
+        DefaultSettableConfig config = new DefaultSettableConfig();
+        config.setProperty("benchmark.string", "value");
+        config.setProperty("benchmark.client.foo.timeout", "500");
+        proxy = new ConfigProxyFactory(config, config.getDecoder(), DefaultPropertyFactory.from(config)).newProxy(BenchmarkConfig.class);
+    }
+
+    @Benchmark
+    public String stringGetter() {
+        return proxy.getString();
+    }
+
+    @Benchmark
+    public int intGetter() {
+        return proxy.getInt();
+    }
+
+    @Benchmark
+    public boolean booleanGetter() {
+        return proxy.isEnabled();
+    }
+
+    @Benchmark
+    public int parameterizedGetter() {
+        return proxy.getTimeout("foo");
+    }
+}
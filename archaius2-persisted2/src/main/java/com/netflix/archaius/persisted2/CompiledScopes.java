@@ -0,0 +1,81 @@
+package com.netflix.archaius.persisted2;
+
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Scopes of a single property variation as compiled by a {@link ScopeTable}: the interned value ids of each
+ * scope by ordinal, and a bitset of the scopes that have any value.
+ */
+final class CompiledScopes {
+    private final ScopeTable table;
+    private final int[][] values;
+
+    /** Bit per scope ordinal that has at least one value, only used when there are at most 64 scopes */
+    private final long present;
+
+    CompiledScopes(ScopeTable table, int[][] values) {
+        this.table = table;
+        this.values = values;
+        long present = 0;
+        for (int i = 0; i < values.length && i < Long.SIZE; i++) {
+            if (values[i].length > 0) {
+                present |= 1L << i;
+            }
+        }
+        this.present = present;
+    }
+
+    /**
+     * Same as {@link AbstractScopePredicate#evaluate}, every scope must either have no value or contain the value of
+     * the running instance.
+     *
+     * @param instanceValues Value id of the running instance for each scope ordinal
+     */
+    boolean matches(int[] instanceValues) {
+        for (int i = 0; i < values.length; i++) {
+            int[] ids = values[i];
+            if (ids.length > 0 && !contains(ids, instanceValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        for (int candidate : ids) {
+            if (candidate == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as the comparison done by {@link ScopePriorityPropertyValueResolver}.
+     *
+     * @return True if other has a value for the highest priority scope in which only one of the two has a value
+     */
+    boolean isLessSpecificThan(CompiledScopes other) {
+        if (values.length <= Long.SIZE) {
+            long diff = present ^ other.present;
+            return (other.present & Long.lowestOneBit(diff)) != 0;
+        }
+        for (int i = 0; i < values.length; i++) {
+            boolean hasValue = values[i].length > 0;
+            if (hasValue != other.values[i].length > 0) {
+                return !hasValue;
+            }
+        }
+        return false;
+    }
+
+    /** @return True if both were compiled by the same table, and so can be compared */
+    boolean isComparableTo(CompiledScopes other) {
+        return table == other.table;
+    }
+
+    LinkedHashMap<String, Set<String>> toMap() {
+        return table.toMap(values);
+    }
+}
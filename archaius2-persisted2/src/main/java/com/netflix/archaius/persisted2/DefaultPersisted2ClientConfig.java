@@ -17,6 +17,7 @@ public class DefaultPersisted2ClientConfig implements Persisted2ClientConfig {
     private Map<String, String> scopes = new HashMap<>();
     private boolean skipPropsWithExtraScopes = false;
     private boolean isEnabled = true;
+    private boolean incrementalSync = false;
     private boolean instrumentationEnabled = false;
     
     public DefaultPersisted2ClientConfig withRefreshRate(int refreshRate) {
@@ -96,6 +97,16 @@ public class DefaultPersisted2ClientConfig implements Persisted2ClientConfig {
         return isEnabled;
     }
 
+    public DefaultPersisted2ClientConfig withIncrementalSync(boolean value) {
+        this.incrementalSync = value;
+        return this;
+    }
+
+    @Override
+    public boolean isIncrementalSync() {
+        return incrementalSync;
+    }
+
     @Override
     public String toString() {
         return new StringBuilder()
@@ -105,6 +116,7 @@ public class DefaultPersisted2ClientConfig implements Persisted2ClientConfig {
           .append(" priority=" + prioritizedScopes)
           .append(" queryScopes=" + queryScopes)
           .append(" enabled=" + isEnabled)
+          .append(" incrementalSync=" + incrementalSync)
           .append("]")
           .toString();
     }
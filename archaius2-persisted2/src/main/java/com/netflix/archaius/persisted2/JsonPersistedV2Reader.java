@@ -6,7 +6,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -17,9 +16,12 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.archaius.config.polling.PollingResponse;
+import com.netflix.archaius.persisted2.loader.IncrementalStreamLoader;
 
 /**
  * Reader for Netflix persisted properties (not yet available in OSS).  
@@ -42,6 +44,30 @@ import com.netflix.archaius.config.polling.PollingResponse;
  * }
  * </pre>
  * 
+ * When built with an {@link IncrementalStreamLoader} the reader instead keeps track of the version of the last
+ * response and only requests the changes since then.  Besides the properties at the configured path the root of
+ * each response is then expected to contain,
+ * 
+ * <pre>
+ * {@code
+ *  "version" : "...",          // Version to pass to the next request
+ *  "delta"   : true,           // Whether only changes since the requested version are included, otherwise all
+ *  "deleted" : ["key", ...]    // Keys of the properties deleted since the requested version
+ * }
+ * </pre>
+ * 
+ * A delta includes all variations of each property that changed, and is returned as a
+ * {@link PollingResponse#forDelta} response that is applied to the current properties.
+ * 
+ * <pre>
+ * {@code
+ *  JsonPersistedV2Reader reader =
+ *      JsonPersistedV2Reader.incrementalBuilder(new HTTPStreamLoader(url))
+ *          .withPredicate(ScopePredicates.fromMap(instanceScopes))
+ *          .build();
+ * }
+ * </pre>
+ * 
  * @author elandau
  *
  */
@@ -53,6 +79,9 @@ public class JsonPersistedV2Reader implements Callable<PollingResponse> {
     private final static String DEFAULT_VALUE_FIELD = "value";
     private final static String DEFAULT_ID_FIELD = "propertyId";
     private final static List<String>   DEFAULT_PATH  = Arrays.asList("persistedproperties", "properties", "property");
+    private final static String VERSION_FIELD = "version";
+    private final static String DELTA_FIELD   = "delta";
+    private final static String DELETED_FIELD = "deleted";
             
     public static class Builder {
         private final Callable<InputStream> reader;
@@ -64,6 +93,8 @@ public class JsonPersistedV2Reader implements Callable<PollingResponse> {
         private ScopePredicate predicate = ScopePredicates.alwaysTrue();
         private ScopedValueResolver resolver = new ScopePriorityPropertyValueResolver();
         private boolean readIdField = false;
+        private boolean streaming = false;
+        private IncrementalStreamLoader incrementalLoader = null;
                 
         public Builder(Callable<InputStream> reader) {
             this.reader = reader;
@@ -114,8 +145,22 @@ public class JsonPersistedV2Reader implements Callable<PollingResponse> {
             this.readIdField = readIdField;
             return this;
         }
+
+        /**
+         * Parse the response incrementally instead of reading it into a tree first.  Properties are filtered by the
+         * predicate as they are read so memory is bounded by the matching properties rather than the response size.
+         * Recommended for large responses.  Not supported by incremental readers, which need the version and deleted
+         * keys of the response as well and always read it into a tree.
+         */
+        public Builder withStreaming(boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
         
         public JsonPersistedV2Reader build() {
+            if (incrementalLoader != null && streaming) {
+                throw new IllegalStateException("Streaming is not supported by incremental readers");
+            }
             return new JsonPersistedV2Reader(this);
         }
         
@@ -124,6 +169,15 @@ public class JsonPersistedV2Reader implements Callable<PollingResponse> {
     public static Builder builder(Callable<InputStream> reader) {
         return new Builder(reader);
     }
+
+    /**
+     * Builder for a reader that only fetches the changes since its previous response, see {@link IncrementalStreamLoader}
+     */
+    public static Builder incrementalBuilder(IncrementalStreamLoader loader) {
+        Builder builder = new Builder(() -> loader.load(null));
+        builder.incrementalLoader = loader;
+        return builder;
+    }
     
     private final Callable<InputStream>   reader;
     private final ScopePredicate          predicate;
@@ -135,6 +189,14 @@ public class JsonPersistedV2Reader implements Callable<PollingResponse> {
     private final String                  valueField;
     private final List<String>            path;
     private final boolean       readIdField;
+    private final boolean       streaming;
+    private final IncrementalStreamLoader incrementalLoader;
+
+    /** Version of the last response of an incremental reader */
+    private String version;
+
+    /** Position of each field read by the streaming parser in the per property array of field values */
+    private final Map<String, Integer> fieldIndexes = new HashMap<>();
 
     private JsonPersistedV2Reader(Builder builder) {
         this.reader        = builder.reader;
@@ -146,12 +208,26 @@ public class JsonPersistedV2Reader implements Callable<PollingResponse> {
         this.scopeFields   = builder.scopeFields;
         this.path          = builder.path;
         this.readIdField   = builder.readIdField;
+        this.streaming     = builder.streaming;
+        this.incrementalLoader = builder.incrementalLoader;
+
+        for (String scope : this.scopeFields) {
+            fieldIndexes.putIfAbsent(scope, fieldIndexes.size());
+        }
+        fieldIndexes.putIfAbsent(keyField, fieldIndexes.size());
+        fieldIndexes.putIfAbsent(valueField, fieldIndexes.size());
+        fieldIndexes.putIfAbsent(idField, fieldIndexes.size());
     }
     
     @Override
     public PollingResponse call() throws Exception {
-        Map<String, List<ScopedValue>> props = new HashMap<String, List<ScopedValue>>();
-        Map<String, List<ScopedValue>> propIds = new HashMap<>();
+        if (incrementalLoader != null) {
+            return callIncremental();
+        }
+
+        Collector collector = new Collector();
+        Map<String, List<ScopedValue>> props = collector.props;
+        Map<String, List<ScopedValue>> propIds = collector.propIds;
         
         InputStream is = reader.call();
         if (is == null) {
@@ -159,45 +235,10 @@ public class JsonPersistedV2Reader implements Callable<PollingResponse> {
         }
         
         try {
-            JsonNode node = mapper.readTree(is);
-            for (String part : this.path) {
-                node = node.path(part);
-            }
-            
-            for (final JsonNode property : node)  {
-                String key = null;
-                try {
-                    key   = property.get(keyField).asText();
-                    String value = property.has(valueField) ? property.get(valueField).asText() : "";
-                    
-                    LinkedHashMap<String, Set<String>> scopes = new LinkedHashMap<String, Set<String>>();
-                    
-                    for (String scope : this.scopeFields) {
-                        String[] values = StringUtils.splitByWholeSeparator(property.has(scope) ? property.get(scope).asText().toLowerCase() : "", ",");
-                        scopes.put(scope, values.length == 0 ? Collections.<String>emptySet() : immutableSetFrom(values));
-                    }
-                    
-                    // Filter out scopes that don't match at all
-                    if (!this.predicate.evaluate(scopes)) {
-                        continue;
-                    }
-                    
-                    // Build up a list of valid scopes
-                    List<ScopedValue> variations = props.get(key);
-                    if (variations == null) {
-                        variations = new ArrayList<ScopedValue>();
-                        props.put(key, variations);
-                    }
-                    variations.add(new ScopedValue(value, scopes));
-                    if (readIdField) {
-                        propIds.putIfAbsent(key, new ArrayList<>());
-                        propIds.get(key).add(
-                                new ScopedValue(property.has(idField) ? property.get(idField).asText() : "", scopes));
-                    }
-                }
-                catch (Exception e) {
-                    LOG.warn("Unable to process property '{}'", key);
-                }
+            if (streaming) {
+                readStreaming(is, collector);
+            } else {
+                readTree(is, collector);
             }
         }
         finally {
@@ -209,32 +250,236 @@ public class JsonPersistedV2Reader implements Callable<PollingResponse> {
             }
         }
         
-        // Resolve to a single property value
+        return snapshot(props, propIds);
+    }
+
+    private PollingResponse snapshot(Map<String, List<ScopedValue>> props, Map<String, List<ScopedValue>> propIds) {
+        if (readIdField) {
+            return PollingResponse.forSnapshot(resolve(props), resolve(propIds));
+        }
+        return PollingResponse.forSnapshot(resolve(props));
+    }
+
+    /**
+     * Resolve the variations of each property to a single property value
+     */
+    private Map<String, String> resolve(Map<String, List<ScopedValue>> props) {
         final Map<String, String> result = new HashMap<String, String>();
         for (Entry<String, List<ScopedValue>> entry : props.entrySet()) {
             result.put(entry.getKey(), valueResolver.resolve(entry.getKey(), entry.getValue()));
         }
+        return result;
+    }
 
-        if (readIdField) {
-            final Map<String, String> idResult = new HashMap<>();
-            for (Entry<String, List<ScopedValue>> entry : propIds.entrySet()) {
-                idResult.put(entry.getKey(), valueResolver.resolve(entry.getKey(), entry.getValue()));
+    private synchronized PollingResponse callIncremental() throws Exception {
+        InputStream is = incrementalLoader.load(version);
+        if (is == null) {
+            return PollingResponse.noop();
+        }
+
+        JsonNode root;
+        try {
+            root = mapper.readTree(is);
+        }
+        finally {
+            try {
+                is.close();
+            }
+            catch (Exception e) {
+                // OK to ignore
             }
-            return PollingResponse.forSnapshot(result, idResult);
         }
-        
-        return PollingResponse.forSnapshot(result);
+
+        Collector collector = new Collector();
+        readProperties(root, collector);
+        JsonNode versionNode = root.path(VERSION_FIELD);
+        String nextVersion = versionNode.isValueNode() ? versionNode.asText() : null;
+
+        // The server may always respond with all properties, e.g. when it no longer knows the requested version
+        if (version == null || !root.path(DELTA_FIELD).asBoolean(false)) {
+            version = nextVersion;
+            return snapshot(collector.props, collector.propIds);
+        }
+
+        // The delta includes all variations of a changed property, so its value is resolved from the delta alone.  A
+        // property none of whose variations match anymore is removed, as are the deleted properties.
+        Set<String> toRemove = new HashSet<>(collector.keys);
+        for (JsonNode deleted : root.path(DELETED_FIELD)) {
+            toRemove.add(deleted.asText());
+        }
+        toRemove.removeAll(collector.props.keySet());
+
+        version = nextVersion;
+        return PollingResponse.forDelta(
+                resolve(collector.props),
+                toRemove,
+                readIdField ? resolve(collector.propIds) : Collections.<String, String>emptyMap());
     }
     
-    private static Set<String> immutableSetFrom(String[] values) {
-        if (values.length == 0) {
-            return Collections.<String>emptySet();
+    private void readTree(InputStream is, Collector collector) throws Exception {
+        readProperties(mapper.readTree(is), collector);
+    }
+
+    private void readProperties(JsonNode node, Collector collector) {
+        for (String part : this.path) {
+            node = node.path(part);
+        }
+
+        for (final JsonNode property : node)  {
+            String key = null;
+            try {
+                key   = property.get(keyField).asText();
+                String value = property.has(valueField) ? property.get(valueField).asText() : "";
+
+                String[] scopes = new String[collector.table.size()];
+                for (int i = 0; i < scopes.length; i++) {
+                    String scope = collector.table.name(i);
+                    scopes[i] = property.has(scope) ? property.get(scope).asText() : null;
+                }
+
+                String id = readIdField && property.has(idField) ? property.get(idField).asText() : "";
+                collector.add(key, value, id, scopes);
+            }
+            catch (Exception e) {
+                LOG.warn("Unable to process property '{}'", key);
+            }
+        }
+    }
+
+    private void readStreaming(InputStream is, Collector collector) throws Exception {
+        try (JsonParser parser = mapper.getFactory().createParser(is)) {
+            parser.nextToken();
+            if (!descend(parser)) {
+                return;
+            }
+
+            // Same as iterating a JsonNode, the properties are the elements of an array or the values of an object
+            JsonToken container = parser.currentToken();
+            JsonToken end = container == JsonToken.START_ARRAY ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+            for (JsonToken token = parser.nextToken(); token != end && token != null; token = parser.nextToken()) {
+                if (container == JsonToken.START_OBJECT) {
+                    // Field name, move on to its value
+                    token = parser.nextToken();
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                String[] fields = readFields(parser);
+                String key = fields[fieldIndexes.get(keyField)];
+                if (key == null) {
+                    LOG.warn("Unable to process property '{}'", key);
+                    continue;
+                }
+                String value = fields[fieldIndexes.get(valueField)];
+                String id = fields[fieldIndexes.get(idField)];
+
+                String[] scopes = new String[collector.table.size()];
+                for (int i = 0; i < scopes.length; i++) {
+                    scopes[i] = fields[fieldIndexes.get(collector.table.name(i))];
+                }
+
+                try {
+                    collector.add(key, value != null ? value : "", id != null ? id : "", scopes);
+                }
+                catch (Exception e) {
+                    LOG.warn("Unable to process property '{}'", key);
+                }
+            }
         }
-        else {
-            HashSet<String> set = new HashSet<String>();
-            set.addAll(Arrays.asList(values));
-            return Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Advance the parser along the configured path, skipping everything else.
+     * @return True if the parser is positioned at an array or object at the end of the path
+     */
+    private boolean descend(JsonParser parser) throws Exception {
+        for (String part : this.path) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            boolean found = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if (part.equals(name)) {
+                    found = true;
+                    break;
+                }
+                parser.skipChildren();
+            }
+            if (!found) {
+                return false;
+            }
         }
+        JsonToken token = parser.currentToken();
+        return token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT;
     }
 
+    /**
+     * Read the fields of the property object the parser is positioned at, keeping only the text of the fields this
+     * reader uses.  Fields that are absent are null.
+     */
+    private String[] readFields(JsonParser parser) throws Exception {
+        String[] fields = new String[fieldIndexes.size()];
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Integer index = fieldIndexes.get(parser.getCurrentName());
+            JsonToken token = parser.nextToken();
+            if (index == null) {
+                parser.skipChildren();
+            } else if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                // Matches JsonNode.asText() of a container
+                parser.skipChildren();
+                fields[index] = "";
+            } else if (token == JsonToken.VALUE_NULL) {
+                fields[index] = "null";
+            } else {
+                fields[index] = parser.getText();
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Variations of each property read so far, with their scopes compiled against a {@link ScopeTable} for this read
+     */
+    private final class Collector {
+        final Map<String, List<ScopedValue>> props = new HashMap<>();
+        final Map<String, List<ScopedValue>> propIds = new HashMap<>();
+        final ScopeTable table = new ScopeTable(scopeFields);
+
+        /**
+         * Keys of all properties read, including those that don't match the predicate.  Only collected by incremental
+         * readers, which remove the properties of a delta none of whose variations match anymore.
+         */
+        final Set<String> keys = incrementalLoader != null ? new HashSet<>() : null;
+
+        /** Scope value ids of the running instance when the predicate can be evaluated on compiled scopes */
+        final int[] instanceValues = predicate instanceof ScopePredicates.CompilableScopePredicate
+                ? table.instanceValues((AbstractScopePredicate) predicate)
+                : null;
+
+        /**
+         * @param rawScopes Text of each scope field by ordinal of the table, null if absent
+         */
+        void add(String key, String value, String id, String[] rawScopes) {
+            if (keys != null) {
+                keys.add(key);
+            }
+            CompiledScopes scopes = table.compile(rawScopes);
+            ScopedValue scopedValue = new ScopedValue(value, scopes);
+
+            // Filter out scopes that don't match at all
+            if (instanceValues != null ? !scopes.matches(instanceValues) : !predicate.evaluate(scopedValue.getScopes())) {
+                return;
+            }
+
+            // Build up a list of valid scopes
+            props.computeIfAbsent(key, k -> new ArrayList<>()).add(scopedValue);
+            if (readIdField) {
+                propIds.computeIfAbsent(key, k -> new ArrayList<>()).add(new ScopedValue(id, scopes));
+            }
+        }
+    }
 }
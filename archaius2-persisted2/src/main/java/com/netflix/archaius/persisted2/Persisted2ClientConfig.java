@@ -46,4 +46,13 @@ public interface Persisted2ClientConfig {
      * @return
      */
     String getServiceUrl();
+
+    /**
+     * When set to true only the changes since the previous poll are requested from the service, see
+     * {@link JsonPersistedV2Reader#incrementalBuilder}.  The service must support incremental sync.
+     * @return
+     */
+    default boolean isIncrementalSync() {
+        return false;
+    }
 }
@@ -125,7 +125,10 @@ public class Persisted2ConfigProvider implements Provider<Config> {
                 return EmptyConfig.INSTANCE;
             }
             
-            JsonPersistedV2Reader reader = JsonPersistedV2Reader.builder(new HTTPStreamLoader(new URL(url)))
+            HTTPStreamLoader loader = new HTTPStreamLoader(new URL(url));
+            JsonPersistedV2Reader reader = (clientConfig.isIncrementalSync()
+                        ? JsonPersistedV2Reader.incrementalBuilder(loader)
+                        : JsonPersistedV2Reader.builder(loader))
                     .withPath("propertiesList")
                     .withScopes(clientConfig.getPrioritizedScopes())
                     .withPredicate(ScopePredicates.fromMap(clientConfig.getScopes()))
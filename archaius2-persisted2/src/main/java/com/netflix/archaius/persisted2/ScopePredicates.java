@@ -14,6 +14,14 @@ import com.netflix.archaius.api.Config;
  *
  */
 public abstract class ScopePredicates {
+    /**
+     * Marker of the predicates created here, which only match scopes against {@link #getScope(String)} and can
+     * therefore be evaluated on scopes compiled by {@link ScopeTable}.  Other subclasses of AbstractScopePredicate
+     * may override evaluate() and must be evaluated as is.
+     */
+    abstract static class CompilableScopePredicate extends AbstractScopePredicate {
+    }
+
     public static ScopePredicate alwaysTrue() {
         return new ScopePredicate() {
             @Override
@@ -25,7 +33,7 @@ public abstract class ScopePredicates {
     
     public static ScopePredicate fromConfig(final Config config) {
         final HashMap<String, String> lookup = new HashMap<String, String>();
-        return new AbstractScopePredicate() {
+        return new CompilableScopePredicate() {
             @Override
             public String getScope(String key) {
                 String value = lookup.get(key);
@@ -43,7 +51,7 @@ public abstract class ScopePredicates {
         for (Entry<String, String> entry : values.entrySet()) {
             lowerCaseValues.put(entry.getKey(), entry.getValue().toLowerCase());
         }
-        return new AbstractScopePredicate() {
+        return new CompilableScopePredicate() {
             @Override
             public String getScope(String key) {
                 String value = lowerCaseValues.get(key);
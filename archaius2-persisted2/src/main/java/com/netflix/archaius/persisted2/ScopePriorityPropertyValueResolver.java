@@ -35,6 +35,15 @@ public class ScopePriorityPropertyValueResolver implements ScopedValueResolver
         // For each subsequent variation
         while (iter.hasNext()) {
             ScopedValue p2 = iter.next();
+
+            CompiledScopes c1 = p1.getCompiledScopes();
+            CompiledScopes c2 = p2.getCompiledScopes();
+            if (c1 != null && c2 != null && c1.isComparableTo(c2)) {
+                if (c1.isLessSpecificThan(c2)) {
+                    p1 = p2;
+                }
+                continue;
+            }
             
             Iterator<Set<String>> s1 = p1.getScopes().values().iterator();
             Iterator<Set<String>> s2 = p2.getScopes().values().iterator();
@@ -0,0 +1,118 @@
+package com.netflix.archaius.persisted2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Scope names and values of a single read of persisted properties, used to compile the scopes of each property
+ * variation into {@link CompiledScopes}.
+ *
+ * Scope names are assigned fixed ordinals in priority order and scope values are interned to small integer ids,
+ * so that matching the scopes of the running instance and comparing scope priority don't need to look at strings
+ * or build maps.  Since most properties share a handful of scope values, each distinct value string is only
+ * lower cased and split once.
+ *
+ * Not thread safe, a table is meant to be used by one read only.
+ */
+final class ScopeTable {
+    static final int[] NO_VALUES = new int[0];
+
+    private final String[] names;
+    private final Map<String, Integer> valueIds = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, int[]> parsed = new HashMap<>();
+
+    ScopeTable(List<String> names) {
+        this.names = new LinkedHashSet<>(names).toArray(new String[0]);
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String name(int ordinal) {
+        return names[ordinal];
+    }
+
+    /**
+     * @return Ids of the comma separated values in the raw scope value, compared case insensitively
+     */
+    int[] parse(String raw) {
+        if (raw == null || raw.isEmpty()) {
+            return NO_VALUES;
+        }
+        int[] ids = parsed.get(raw);
+        if (ids == null) {
+            String[] parts = StringUtils.splitByWholeSeparator(raw.toLowerCase(), ",");
+            Set<Integer> distinct = new LinkedHashSet<>();
+            for (String part : parts) {
+                distinct.add(intern(part));
+            }
+            ids = new int[distinct.size()];
+            int i = 0;
+            for (Integer id : distinct) {
+                ids[i++] = id;
+            }
+            parsed.put(raw, ids);
+        }
+        return ids;
+    }
+
+    /**
+     * @param raw Raw value of each scope by ordinal, null if absent
+     */
+    CompiledScopes compile(String[] raw) {
+        int[][] ids = new int[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = parse(raw[i]);
+        }
+        return new CompiledScopes(this, ids);
+    }
+
+    /**
+     * @return Id of the scope value of the running instance for each scope ordinal
+     */
+    int[] instanceValues(AbstractScopePredicate predicate) {
+        int[] ids = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = intern(predicate.getScope(names[i]).toLowerCase());
+        }
+        return ids;
+    }
+
+    private int intern(String value) {
+        Integer id = valueIds.get(value);
+        if (id == null) {
+            id = values.size();
+            values.add(value);
+            valueIds.put(value, id);
+        }
+        return id;
+    }
+
+    /** Expand compiled scopes back into the map of scope name to values used by the public API */
+    LinkedHashMap<String, Set<String>> toMap(int[][] ids) {
+        LinkedHashMap<String, Set<String>> map = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (ids[i].length == 0) {
+                map.put(names[i], Collections.<String>emptySet());
+            } else {
+                Set<String> set = new HashSet<>();
+                for (int id : ids[i]) {
+                    set.add(values.get(id));
+                }
+                map.put(names[i], Collections.unmodifiableSet(set));
+            }
+        }
+        return map;
+    }
+}
@@ -10,11 +10,21 @@ import java.util.Set;
  */
 public class ScopedValue {
     private final String value;
-    private final LinkedHashMap<String, Set<String>> scopes;
+    private volatile LinkedHashMap<String, Set<String>> scopes;
+    private final CompiledScopes compiledScopes;
     
     public ScopedValue(String value, LinkedHashMap<String, Set<String>> scopes) {
         this.value  = value;
         this.scopes = scopes;
+        this.compiledScopes = null;
+    }
+
+    /**
+     * Scopes in compiled form, the map returned by {@link #getScopes()} is only created when asked for
+     */
+    ScopedValue(String value, CompiledScopes compiledScopes) {
+        this.value = value;
+        this.compiledScopes = compiledScopes;
     }
 
     public String getValue() {
@@ -22,6 +32,16 @@ public class ScopedValue {
     }
     
     public LinkedHashMap<String, Set<String>> getScopes() {
+        LinkedHashMap<String, Set<String>> scopes = this.scopes;
+        if (scopes == null) {
+            scopes = compiledScopes.toMap();
+            this.scopes = scopes;
+        }
         return scopes;
     }
+
+    /** @return The compiled scopes, or null if created from a map */
+    CompiledScopes getCompiledScopes() {
+        return compiledScopes;
+    }
 }
@@ -3,10 +3,17 @@ package com.netflix.archaius.persisted2.loader;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.util.concurrent.Callable;
 import java.util.zip.GZIPInputStream;
 
-public class HTTPStreamLoader implements Callable<InputStream> {
+/**
+ * Loads persisted properties from a URL.  Incremental loads request the changes since a version by adding the
+ * version as the 'since' query parameter.
+ */
+public class HTTPStreamLoader implements Callable<InputStream>, IncrementalStreamLoader {
+
+    private static final String SINCE_QUERY_PARAM = "since";
 
     private String lastEtag;
     private final URL url;
@@ -17,13 +24,24 @@ public class HTTPStreamLoader implements Callable<InputStream> {
     
     @Override
     public InputStream call() throws Exception {
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        return load(null);
+    }
+
+    @Override
+    public InputStream load(String version) throws Exception {
+        URL target = url;
+        if (version != null) {
+            String param = SINCE_QUERY_PARAM + "=" + URLEncoder.encode(version, "UTF-8");
+            target = new URL(url.toString() + (url.getQuery() == null ? "?" : "&") + param);
+        }
+        HttpURLConnection conn = (HttpURLConnection) target.openConnection();
         
         conn.setConnectTimeout(6000);
         conn.setReadTimeout(10000);
         conn.setRequestProperty("Accept",          "application/json");
         conn.setRequestProperty("Accept-Encoding", "gzip");
-        if (lastEtag != null) {
+        // The ETag is only meaningful for the full response
+        if (lastEtag != null && version == null) {
             conn.setRequestProperty("If-None-Match", lastEtag);
         }
         
@@ -32,7 +50,9 @@ public class HTTPStreamLoader implements Callable<InputStream> {
         // force a connection to test if the URL is reachable
         final int status = conn.getResponseCode();
         if (status == 200) {
-            lastEtag = conn.getHeaderField("ETag");
+            if (version == null) {
+                lastEtag = conn.getHeaderField("ETag");
+            }
             
             InputStream input = conn.getInputStream();
             if ("gzip".equals(conn.getContentEncoding())) {
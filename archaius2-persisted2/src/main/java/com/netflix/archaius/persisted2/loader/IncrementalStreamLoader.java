@@ -0,0 +1,15 @@
+package com.netflix.archaius.persisted2.loader;
+
+import java.io.InputStream;
+
+/**
+ * Loader of persisted properties that can fetch only the changes made since a version returned by a previous
+ * response, see {@link com.netflix.archaius.persisted2.JsonPersistedV2Reader#incrementalBuilder(IncrementalStreamLoader)}.
+ */
+public interface IncrementalStreamLoader {
+    /**
+     * @param version Version of the previous response, or null to load all properties
+     * @return Stream of the response, or null if nothing changed
+     */
+    InputStream load(String version) throws Exception;
+}
@@ -64,6 +64,20 @@ public class FirstScopePropertyValueResolverTest {
         assertEquals("2", resolver.resolve("propName", variations));
     }
     
+    @Test
+    public void testCompiledScopes() {
+        ScopeTable table = new ScopeTable(Arrays.asList("s1", "s2", "s3"));
+        List<ScopedValue> variations = Arrays.asList(
+            new ScopedValue("1", table.compile(new String[] {"", null, "b"})),
+            new ScopedValue("2", table.compile(new String[] {"", "A,b", ""})),
+            new ScopedValue("3", table.compile(new String[] {null, "a", null}))
+        );
+
+        assertEquals("2", resolver.resolve("propName", variations));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), variations.get(1).getScopes().get("s2"));
+        assertEquals(Collections.emptySet(), variations.get(1).getScopes().get("s3"));
+    }
+
     ScopedValue create(String value, String... keyValuePairs) {
         LinkedHashMap<String, Set<String>> map = new LinkedHashMap<>();
         for (int i = 0; i < keyValuePairs.length; i += 2) {
@@ -1,15 +1,36 @@
 package com.netflix.archaius.persisted2;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.archaius.config.PollingDynamicConfig;
+import com.netflix.archaius.config.polling.ManualPollingStrategy;
 import com.netflix.archaius.config.polling.PollingResponse;
+import com.netflix.archaius.persisted2.loader.HTTPStreamLoader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class JsonPersistedV2ReaderTest {
@@ -68,6 +89,256 @@ public class JsonPersistedV2ReaderTest {
         assertTrue(response.getNameToIdsMap().isEmpty());
     }
 
+    @Test
+    public void streamingMatchesTree() throws Exception {
+        List<TestProperty> propertyList = new ArrayList<>();
+        propertyList.add(new TestProperty("key1", "value3", "id3", "app1", ""));
+        propertyList.add(new TestProperty("key1", "value1", "id1", "app1", "region1"));
+        propertyList.add(new TestProperty("key2", "value2", "id2", "app1", "REGION1,region2"));
+        propertyList.add(new TestProperty("key2", "value4", "id4", "app1", ""));
+        propertyList.add(new TestProperty("key3", "value5", "id5", "app1", "region3"));
+        byte[] content = new ObjectMapper().writeValueAsBytes(new TestPropertyList(propertyList));
+
+        Map<String, String> instanceScopes = new HashMap<>();
+        instanceScopes.put("appId", "app1");
+        instanceScopes.put("region", "region1");
+
+        PollingResponse tree = JsonPersistedV2Reader.builder(() -> new ByteArrayInputStream(content))
+                .withPath("propertiesList")
+                .withPredicate(ScopePredicates.fromMap(instanceScopes))
+                .withReadIdField(true)
+                .build()
+                .call();
+        PollingResponse streaming = JsonPersistedV2Reader.builder(() -> new ByteArrayInputStream(content))
+                .withPath("propertiesList")
+                .withPredicate(ScopePredicates.fromMap(instanceScopes))
+                .withReadIdField(true)
+                .withStreaming(true)
+                .build()
+                .call();
+
+        assertEquals(2, streaming.getToAdd().size());
+        assertEquals("value1", streaming.getToAdd().get("key1"));
+        assertEquals("value2", streaming.getToAdd().get("key2"));
+        assertEquals("id2", streaming.getNameToIdsMap().get("key2"));
+        assertEquals(tree.getToAdd(), streaming.getToAdd());
+        assertEquals(tree.getNameToIdsMap(), streaming.getNameToIdsMap());
+    }
+
+    @Test
+    public void streamingSkipsUnrelatedContent() throws Exception {
+        String content = "{\"other\":{\"propertiesList\":[{\"key\":\"ignored\"}]},"
+                + "\"propertiesList\":[{\"key\":\"key1\",\"nested\":{\"key\":\"x\"},\"value\":\"value1\"},"
+                + "\"invalid\",{\"value\":\"no key\"},{\"key\":\"key2\",\"value\":[1,2]}]}";
+
+        PollingResponse response = JsonPersistedV2Reader.builder(() -> new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)))
+                .withPath("propertiesList")
+                .withStreaming(true)
+                .build()
+                .call();
+
+        assertEquals(2, response.getToAdd().size());
+        assertEquals("value1", response.getToAdd().get("key1"));
+        assertEquals("", response.getToAdd().get("key2"));
+    }
+
+    @Test
+    public void overriddenEvaluateIsUsed() throws Exception {
+        List<TestProperty> propertyList = new ArrayList<>();
+        propertyList.add(new TestProperty("key1", "value1", "id1", "app1", "region1"));
+        propertyList.add(new TestProperty("key2", "value2", "id2", "app1", "region2"));
+        byte[] content = new ObjectMapper().writeValueAsBytes(new TestPropertyList(propertyList));
+
+        // Also accepts region2 although the scope of the instance is region1
+        ScopePredicate predicate = new AbstractScopePredicate() {
+            @Override
+            public boolean evaluate(Map<String, Set<String>> scopes) {
+                return super.evaluate(scopes) || scopes.getOrDefault("region", Collections.emptySet()).contains("region2");
+            }
+
+            @Override
+            protected String getScope(String key) {
+                return key.equals("appId") ? "app1" : key.equals("region") ? "region1" : "";
+            }
+        };
+
+        for (boolean streaming : new boolean[] {false, true}) {
+            PollingResponse response = JsonPersistedV2Reader.builder(() -> new ByteArrayInputStream(content))
+                    .withPath("propertiesList")
+                    .withPredicate(predicate)
+                    .withStreaming(streaming)
+                    .build()
+                    .call();
+
+            assertEquals("value1", response.getToAdd().get("key1"));
+            assertEquals("value2", response.getToAdd().get("key2"));
+        }
+    }
+
+    @Test
+    public void incrementalSync() throws Exception {
+        DeltaServer server = new DeltaServer();
+        try {
+            server.publish(
+                    new TestProperty("key1", "value1", "id1", "app1", ""),
+                    new TestProperty("key2", "value2", "id2", "app1", ""),
+                    new TestProperty("key3", "value3", "id3", "app1", ""));
+
+            Map<String, String> instanceScopes = new HashMap<>();
+            instanceScopes.put("appId", "app1");
+            instanceScopes.put("region", "region1");
+            JsonPersistedV2Reader reader = JsonPersistedV2Reader.incrementalBuilder(new HTTPStreamLoader(server.getUrl()))
+                    .withPath("propertiesList")
+                    .withPredicate(ScopePredicates.fromMap(instanceScopes))
+                    .withReadIdField(true)
+                    .build();
+
+            AtomicReference<PollingResponse> response = new AtomicReference<>();
+            ManualPollingStrategy strategy = new ManualPollingStrategy();
+            PollingDynamicConfig config = new PollingDynamicConfig(() -> {
+                response.set(reader.call());
+                return response.get();
+            }, strategy);
+            strategy.fire();
+            assertNull(server.lastSince);
+            assertFalse(response.get().isIncremental());
+            assertEquals("value1", config.getString("key1"));
+            assertEquals("value3", config.getString("key3"));
+
+            // Only changed properties are transferred, and merged with the current properties
+            server.publish(
+                    new TestProperty("key1", "value1", "id1", "app1", ""),
+                    new TestProperty("key2", "value2", "id2", "app1", ""),
+                    new TestProperty("key2", "value2-region1", "id4", "app1", "region1"),
+                    new TestProperty("key4", "value4", "id5", "app1", ""));
+            strategy.fire();
+            PollingResponse delta = response.get();
+            assertEquals("1", server.lastSince);
+            assertTrue(delta.isIncremental());
+            assertEquals(new HashSet<>(Arrays.asList("key2", "key4")), delta.getToAdd().keySet());
+            assertEquals("value2-region1", delta.getToAdd().get("key2"));
+            assertEquals("id4", delta.getNameToIdsMap().get("key2"));
+            assertEquals(Collections.singleton("key3"), new HashSet<>(delta.getToRemove()));
+            assertEquals("value2-region1", config.getString("key2"));
+            assertEquals("value4", config.getString("key4"));
+            assertFalse(config.containsKey("key3"));
+
+            // Variations of a property in a delta replace the previous ones, the property may no longer match
+            server.publish(
+                    new TestProperty("key1", "value1", "id1", "app1", ""),
+                    new TestProperty("key2", "value2-region1", "id4", "app1", "region1"),
+                    new TestProperty("key4", "value4", "id5", "app2", ""));
+            strategy.fire();
+            assertEquals("2", server.lastSince);
+            assertEquals("value1", config.getString("key1"));
+            assertEquals("value2-region1", config.getString("key2"));
+            assertFalse(config.containsKey("key3"));
+            assertFalse(config.containsKey("key4"));
+
+            // Falls back to a full read when the server doesn't know the version
+            server.history.clear();
+            server.publish(new TestProperty("key5", "value5", "id6", "app1", ""));
+            strategy.fire();
+            assertFalse(response.get().isIncremental());
+            assertEquals("value5", config.getString("key5"));
+            assertFalse(config.containsKey("key1"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void incrementalStreamingIsRejected() {
+        JsonPersistedV2Reader.Builder builder = JsonPersistedV2Reader.incrementalBuilder(since -> null)
+                .withStreaming(true);
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    /**
+     * Stand-in for a persisted properties server supporting incremental sync.  Each published list of properties
+     * is a new version, and a request since a known version returns all variations of the properties that changed.
+     */
+    private static class DeltaServer {
+        final List<List<TestProperty>> history = new ArrayList<>();
+        final HttpServer server;
+        volatile String lastSince;
+
+        DeltaServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/properties", this::handle);
+            server.start();
+        }
+
+        URL getUrl() throws IOException {
+            return new URL("http://localhost:" + server.getAddress().getPort() + "/properties");
+        }
+
+        synchronized void publish(TestProperty... properties) {
+            history.add(Arrays.asList(properties));
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private synchronized void handle(HttpExchange exchange) throws IOException {
+            String query = exchange.getRequestURI().getQuery();
+            lastSince = query != null && query.startsWith("since=") ? query.substring("since=".length()) : null;
+            List<TestProperty> latest = history.get(history.size() - 1);
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("version", String.valueOf(history.size()));
+            int since = lastSince == null ? -1 : Integer.parseInt(lastSince) - 1;
+            if (since >= 0 && since < history.size()) {
+                Map<String, List<TestProperty>> before = byKey(history.get(since));
+                Map<String, List<TestProperty>> after = byKey(latest);
+                List<TestProperty> changed = new ArrayList<>();
+                after.forEach((key, variations) -> {
+                    if (!sameVariations(variations, before.get(key))) {
+                        changed.addAll(variations);
+                    }
+                });
+                List<String> deleted = new ArrayList<>(before.keySet());
+                deleted.removeAll(after.keySet());
+
+                body.put("delta", true);
+                body.put("deleted", deleted);
+                body.put("propertiesList", changed);
+            } else {
+                body.put("propertiesList", latest);
+            }
+
+            byte[] content = new ObjectMapper().writeValueAsBytes(body);
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(content);
+            }
+        }
+
+        private static Map<String, List<TestProperty>> byKey(List<TestProperty> properties) {
+            Map<String, List<TestProperty>> map = new HashMap<>();
+            for (TestProperty property : properties) {
+                map.computeIfAbsent(property.key, k -> new ArrayList<>()).add(property);
+            }
+            return map;
+        }
+
+        private static boolean sameVariations(List<TestProperty> a, List<TestProperty> b) {
+            if (b == null || a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                TestProperty x = a.get(i);
+                TestProperty y = b.get(i);
+                if (!Objects.equals(x.value, y.value) || !Objects.equals(x.propertyId, y.propertyId)
+                        || !Objects.equals(x.appId, y.appId) || !Objects.equals(x.region, y.region)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     public static class TestPropertyList {
         public List<TestProperty> propertiesList;
         public TestPropertyList(List<TestProperty> propertiesList) {
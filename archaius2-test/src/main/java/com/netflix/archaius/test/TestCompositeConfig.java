@@ -2,6 +2,7 @@ package com.netflix.archaius.test;
 
 import java.util.Iterator;
 import java.util.Properties;
+import java.util.function.Consumer;
 
 import com.netflix.archaius.api.Config;
 import com.netflix.archaius.api.config.SettableConfig;
@@ -69,4 +70,9 @@ public class TestCompositeConfig extends DefaultCompositeConfig implements Setta
     public void clearProperty(String propName) {
         getSettableConfig(RUNTIME_LAYER_NAME).clearProperty(propName);
     }
+
+    @Override
+    public void update(Consumer<Mutator> changes) {
+        getSettableConfig(RUNTIME_LAYER_NAME).update(changes);
+    }
 }